@@ -0,0 +1,31 @@
+package com.dnc.mprs.userservice.broker;
+
+/**
+ * A message of a {@link MessageBroadcaster}, with its id.
+ * <p>
+ * Ids increase by one with every published message, starting from 1 when the application starts.
+ */
+public final class BroadcastMessage<T> {
+
+    private final long id;
+
+    private final T payload;
+
+    BroadcastMessage(long id, T payload) {
+        this.id = id;
+        this.payload = payload;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public T getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return "BroadcastMessage{id=" + id + ", payload=" + payload + "}";
+    }
+}
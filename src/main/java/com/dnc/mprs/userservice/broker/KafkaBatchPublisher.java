@@ -0,0 +1,86 @@
+package com.dnc.mprs.userservice.broker;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import java.util.List;
+import java.util.function.Function;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.config.BindingServiceProperties;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuple2;
+
+/**
+ * Publishes batches of messages to the destination of an output binding, and reports the acknowledgement of each.
+ * <p>
+ * Messages are handed to the Kafka producer in chunks, without waiting for the previous ones to be acknowledged, so
+ * that the producer can group them in record batches, compressed as configured in {@code spring.kafka.producer}.
+ * The producer may block while it fetches the metadata of the topic, or while its buffer is full, so messages are handed
+ * to it on the bounded elastic scheduler, and never on an event loop.
+ */
+@Component
+public class KafkaBatchPublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KafkaBatchPublisher.class);
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final BindingServiceProperties bindingServiceProperties;
+
+    private final ApplicationProperties.Broker.Publish properties;
+
+    public KafkaBatchPublisher(
+        KafkaTemplate<String, String> kafkaTemplate,
+        BindingServiceProperties bindingServiceProperties,
+        ApplicationProperties applicationProperties
+    ) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.bindingServiceProperties = bindingServiceProperties;
+        this.properties = applicationProperties.getBroker().getPublish();
+    }
+
+    /**
+     * Publish messages to the destination of an output binding.
+     *
+     * @param bindingName the name of the output binding.
+     * @param items the messages.
+     * @return the results of each message, in the order of the messages, as they are acknowledged.
+     */
+    public Flux<PublishItemResult> publish(String bindingName, Flux<PublishItem> items) {
+        String topic = bindingServiceProperties.getBindingDestination(bindingName);
+        return items
+            .index()
+            .buffer(properties.getChunkSize())
+            .flatMapSequential(chunk -> send(topic, chunk), properties.getMaxInFlightChunks());
+    }
+
+    private Flux<PublishItemResult> send(String topic, List<Tuple2<Long, PublishItem>> chunk) {
+        return Mono.fromCallable(() -> chunk.stream().map(item -> send(topic, item.getT1(), item.getT2())).toList())
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(Flux::fromIterable)
+            .concatMap(Function.identity());
+    }
+
+    /**
+     * Hand a message to the producer, and return its acknowledgement.
+     */
+    private Mono<PublishItemResult> send(String topic, long index, PublishItem item) {
+        if (item.getValue() == null) {
+            return Mono.just(new PublishItemResult(index, PublishItemResult.Status.INVALID, null, null, "value: must not be null"));
+        }
+        return Mono.fromFuture(kafkaTemplate.send(new ProducerRecord<>(topic, item.getKey(), item.getValue())))
+            .map(result -> {
+                RecordMetadata metadata = result.getRecordMetadata();
+                return new PublishItemResult(index, PublishItemResult.Status.ACKNOWLEDGED, metadata.partition(), metadata.offset(), null);
+            })
+            .onErrorResume(e -> {
+                LOG.warn("Could not publish the message {} of the batch to {}", index, topic, e);
+                return Mono.just(new PublishItemResult(index, PublishItemResult.Status.FAILED, null, null, e.getMessage()));
+            });
+    }
+}
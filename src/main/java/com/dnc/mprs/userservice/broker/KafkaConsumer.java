@@ -1,26 +1,44 @@
 package com.dnc.mprs.userservice.broker;
 
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
 
 @Component
 public class KafkaConsumer implements Consumer<String> {
 
     private static final Logger LOG = LoggerFactory.getLogger(KafkaConsumer.class);
 
-    private Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+    private final MessageBroadcaster<String> broadcaster;
 
-    public Flux<String> getFlux() {
-        return this.sink.asFlux();
+    public KafkaConsumer(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Broker.Consume properties = applicationProperties.getBroker().getConsume();
+        this.broadcaster = new MessageBroadcaster<>(
+            "kafka.consume.stream",
+            properties.getBufferSize(),
+            properties.getReplaySize(),
+            properties.getOverflowPolicy(),
+            meterRegistry
+        );
+    }
+
+    /**
+     * Get the consumed messages; every subscriber gets all of them, up to its buffer size.
+     *
+     * @param lastEventId the id of the last message received before reconnecting, to resume after it, if any.
+     * @return the messages consumed after the given id, or from now on.
+     */
+    public Flux<BroadcastMessage<String>> getFlux(Long lastEventId) {
+        return broadcaster.subscribe(lastEventId);
     }
 
     @Override
     public void accept(String input) {
         LOG.debug("Got message from kafka stream: {}", input);
-        sink.emitNext(input, Sinks.EmitFailureHandler.FAIL_FAST);
+        broadcaster.publish(input);
     }
 }
@@ -0,0 +1,129 @@
+package com.dnc.mprs.userservice.broker;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties.Broker.Consume.OverflowPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Broadcasts messages to any number of subscribers, each with its own bounded buffer.
+ * <p>
+ * A slow subscriber does not hold back the others: once its buffer is full, messages are dropped, or it is
+ * disconnected, according to the {@link OverflowPolicy}.
+ * <p>
+ * Messages get increasing ids, and the last ones are kept in a ring buffer, whether there are subscribers or not, so
+ * that a subscriber which reconnects can resume after the last message it got. Memory stays bounded by the replay size,
+ * plus the buffer size times the number of subscribers.
+ * <p>
+ * The number of subscribers, the dropped messages, the disconnected subscribers, and the lag, which is the number of
+ * messages buffered for the slowest subscriber, are registered in the {@link MeterRegistry} under the given name.
+ */
+class MessageBroadcaster<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MessageBroadcaster.class);
+
+    private final Sinks.Many<BroadcastMessage<T>> sink;
+
+    private final AtomicLong lastId = new AtomicLong();
+
+    private final Set<AtomicLong> bufferedBySubscriber = ConcurrentHashMap.newKeySet();
+
+    private final int bufferSize;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Counter droppedCounter;
+
+    private final Counter disconnectedCounter;
+
+    MessageBroadcaster(String name, int bufferSize, int replaySize, OverflowPolicy overflowPolicy, MeterRegistry meterRegistry) {
+        // replayed messages go through the buffer of the subscriber too
+        this.sink = Sinks.many().replay().limit(Math.max(1, Math.min(replaySize, bufferSize)));
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+        Gauge.builder(name + ".subscribers", bufferedBySubscriber, Set::size)
+            .description("Number of subscribers of the stream")
+            .register(meterRegistry);
+        Gauge.builder(name + ".lag", this, MessageBroadcaster::getLag)
+            .description("Number of messages buffered for the slowest subscriber")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder(name + ".dropped")
+            .description("Messages dropped for subscribers with a full buffer")
+            .tag("policy", overflowPolicy.name().toLowerCase())
+            .register(meterRegistry);
+        this.disconnectedCounter = Counter.builder(name + ".disconnected")
+            .description("Subscribers disconnected because their buffer was full")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Publish a message to the current subscribers, and keep it for replay. Concurrent calls are serialized.
+     *
+     * @param message the message.
+     * @return the id of the message.
+     */
+    synchronized long publish(T message) {
+        long id = lastId.incrementAndGet();
+        Sinks.EmitResult result = sink.tryEmitNext(new BroadcastMessage<>(id, message));
+        if (result.isFailure()) {
+            LOG.warn("Could not broadcast a message: {}", result);
+        }
+        return id;
+    }
+
+    /**
+     * Subscribe to the messages published after the given id, the ones still kept for replay first.
+     * <p>
+     * Without an id, or with an id greater than the id of the last published message, which is then from before a
+     * restart, only the messages published from now on are received.
+     *
+     * @param lastEventId the id of the last message received, if any.
+     * @return the messages, buffered for this subscriber.
+     */
+    Flux<BroadcastMessage<T>> subscribe(Long lastEventId) {
+        return Flux.defer(() -> {
+            long lastPublishedId = lastId.get();
+            long after = lastEventId == null || lastEventId > lastPublishedId ? lastPublishedId : lastEventId;
+            AtomicLong buffered = new AtomicLong();
+            Sinks.Empty<Void> disconnect = Sinks.empty();
+            bufferedBySubscriber.add(buffered);
+            return sink
+                .asFlux()
+                .filter(message -> message.getId() > after)
+                .doOnNext(message -> buffered.incrementAndGet())
+                .onBackpressureBuffer(
+                    bufferSize,
+                    dropped -> {
+                        buffered.decrementAndGet();
+                        if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                            LOG.warn("Disconnecting a subscriber whose buffer of {} messages is full", bufferSize);
+                            disconnectedCounter.increment();
+                            disconnect.tryEmitEmpty();
+                        } else {
+                            droppedCounter.increment();
+                        }
+                    },
+                    overflowPolicy == OverflowPolicy.DROP_OLDEST ? BufferOverflowStrategy.DROP_OLDEST : BufferOverflowStrategy.DROP_LATEST
+                )
+                .doOnNext(message -> buffered.decrementAndGet())
+                // completes at once, without waiting for the subscriber to request the buffered messages
+                .takeUntilOther(disconnect.asMono())
+                .doFinally(signal -> bufferedBySubscriber.remove(buffered));
+        });
+    }
+
+    /**
+     * @return the number of messages buffered for the slowest subscriber.
+     */
+    long getLag() {
+        return bufferedBySubscriber.stream().mapToLong(AtomicLong::get).max().orElse(0);
+    }
+}
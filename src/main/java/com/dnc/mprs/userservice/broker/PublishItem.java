@@ -0,0 +1,43 @@
+package com.dnc.mprs.userservice.broker;
+
+import java.io.Serializable;
+
+/**
+ * A message to publish to Kafka, with an optional key: messages with the same key go to the same partition.
+ */
+public class PublishItem implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String key;
+
+    private String value;
+
+    public PublishItem() {}
+
+    public PublishItem(String key, String value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return "PublishItem{key='" + key + "', value='" + value + "'}";
+    }
+}
@@ -0,0 +1,93 @@
+package com.dnc.mprs.userservice.broker;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+
+/**
+ * The acknowledgement of one message of a batch publish: where the broker stored it, or why it was not stored.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class PublishItemResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Status of a published message.
+     */
+    public enum Status {
+        ACKNOWLEDGED,
+        INVALID,
+        FAILED,
+    }
+
+    private long index;
+
+    private Status status;
+
+    private Integer partition;
+
+    private Long offset;
+
+    private String error;
+
+    public PublishItemResult() {}
+
+    public PublishItemResult(long index, Status status, Integer partition, Long offset, String error) {
+        this.index = index;
+        this.status = status;
+        this.partition = partition;
+        this.offset = offset;
+        this.error = error;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Integer getPartition() {
+        return partition;
+    }
+
+    public void setPartition(Integer partition) {
+        this.partition = partition;
+    }
+
+    public Long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(Long offset) {
+        this.offset = offset;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "PublishItemResult{" +
+            "index=" + getIndex() +
+            ", status=" + getStatus() +
+            ", partition=" + getPartition() +
+            ", offset=" + getOffset() +
+            ", error='" + getError() + "'" +
+            "}";
+    }
+}
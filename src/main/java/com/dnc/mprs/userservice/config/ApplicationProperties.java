@@ -10,9 +10,788 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
+
+    private final Cache cache = new Cache();
+
+    private final Pagination pagination = new Pagination();
+
+    private final Indexing indexing = new Indexing();
+
+    private final Search search = new Search();
+
+    private final Broker broker = new Broker();
+
     // jhipster-needle-application-properties-property
 
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public Indexing getIndexing() {
+        return indexing;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Broker getBroker() {
+        return broker;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
+    public static class Cache {
+
+        private final UserInfo userInfo = new UserInfo();
+
+        private final Query query = new Query();
+
+        public UserInfo getUserInfo() {
+            return userInfo;
+        }
+
+        public Query getQuery() {
+            return query;
+        }
+
+        public static class UserInfo {
+
+            private long maxEntries = 10000;
+
+            private int timeToLiveSeconds = 300;
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public int getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+
+        public static class Query {
+
+            private boolean enabled = true;
+
+            private long maxEntries = 1000;
+
+            private int timeToLiveSeconds = 30;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public int getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(int timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+    }
+
+    public static class Pagination {
+
+        private CountStrategy countStrategy = CountStrategy.EXACT;
+
+        private int countCacheTimeToLiveSeconds = 30;
+
+        private long estimatedCountThreshold = 100000;
+
+        public CountStrategy getCountStrategy() {
+            return countStrategy;
+        }
+
+        public void setCountStrategy(CountStrategy countStrategy) {
+            this.countStrategy = countStrategy;
+        }
+
+        public int getCountCacheTimeToLiveSeconds() {
+            return countCacheTimeToLiveSeconds;
+        }
+
+        public void setCountCacheTimeToLiveSeconds(int countCacheTimeToLiveSeconds) {
+            this.countCacheTimeToLiveSeconds = countCacheTimeToLiveSeconds;
+        }
+
+        public long getEstimatedCountThreshold() {
+            return estimatedCountThreshold;
+        }
+
+        public void setEstimatedCountThreshold(long estimatedCountThreshold) {
+            this.estimatedCountThreshold = estimatedCountThreshold;
+        }
+
+        /**
+         * How the total count of paginated list responses is computed.
+         */
+        public enum CountStrategy {
+            /**
+             * A {@code COUNT(*)} for every request.
+             */
+            EXACT,
+            /**
+             * A {@code COUNT(*)} cached for a short time, and invalidated by local inserts and deletes.
+             */
+            CACHED,
+            /**
+             * The row count estimated from the table statistics, or an exact count below the threshold.
+             */
+            ESTIMATED,
+        }
+    }
+
+    public static class Indexing {
+
+        private final Index index = new Index();
+
+        private final Outbox outbox = new Outbox();
+
+        private final Bulk bulk = new Bulk();
+
+        private final Reindex reindex = new Reindex();
+
+        private final Reconcile reconcile = new Reconcile();
+
+        public Index getIndex() {
+            return index;
+        }
+
+        public Outbox getOutbox() {
+            return outbox;
+        }
+
+        public Bulk getBulk() {
+            return bulk;
+        }
+
+        public Reindex getReindex() {
+            return reindex;
+        }
+
+        public Reconcile getReconcile() {
+            return reconcile;
+        }
+
+        public static class Index {
+
+            private int replicas = 1;
+
+            private String refreshInterval = "1s";
+
+            private boolean failOnInvalid = false;
+
+            public int getReplicas() {
+                return replicas;
+            }
+
+            public void setReplicas(int replicas) {
+                this.replicas = replicas;
+            }
+
+            public String getRefreshInterval() {
+                return refreshInterval;
+            }
+
+            public void setRefreshInterval(String refreshInterval) {
+                this.refreshInterval = refreshInterval;
+            }
+
+            public boolean isFailOnInvalid() {
+                return failOnInvalid;
+            }
+
+            public void setFailOnInvalid(boolean failOnInvalid) {
+                this.failOnInvalid = failOnInvalid;
+            }
+        }
+
+        public static class Outbox {
+
+            private long pollIntervalMillis = 500;
+
+            private int batchSize = 200;
+
+            private long initialBackoffMillis = 1000;
+
+            private long maxBackoffMillis = 300000;
+
+            public long getPollIntervalMillis() {
+                return pollIntervalMillis;
+            }
+
+            public void setPollIntervalMillis(long pollIntervalMillis) {
+                this.pollIntervalMillis = pollIntervalMillis;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getInitialBackoffMillis() {
+                return initialBackoffMillis;
+            }
+
+            public void setInitialBackoffMillis(long initialBackoffMillis) {
+                this.initialBackoffMillis = initialBackoffMillis;
+            }
+
+            public long getMaxBackoffMillis() {
+                return maxBackoffMillis;
+            }
+
+            public void setMaxBackoffMillis(long maxBackoffMillis) {
+                this.maxBackoffMillis = maxBackoffMillis;
+            }
+        }
+
+        public static class Bulk {
+
+            private int queueCapacity = 10000;
+
+            private long lingerMillis = 50;
+
+            private int minBatchSize = 50;
+
+            private int maxBatchSize = 1000;
+
+            private long targetLatencyMillis = 500;
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public long getLingerMillis() {
+                return lingerMillis;
+            }
+
+            public void setLingerMillis(long lingerMillis) {
+                this.lingerMillis = lingerMillis;
+            }
+
+            public int getMinBatchSize() {
+                return minBatchSize;
+            }
+
+            public void setMinBatchSize(int minBatchSize) {
+                this.minBatchSize = minBatchSize;
+            }
+
+            public int getMaxBatchSize() {
+                return maxBatchSize;
+            }
+
+            public void setMaxBatchSize(int maxBatchSize) {
+                this.maxBatchSize = maxBatchSize;
+            }
+
+            public long getTargetLatencyMillis() {
+                return targetLatencyMillis;
+            }
+
+            public void setTargetLatencyMillis(long targetLatencyMillis) {
+                this.targetLatencyMillis = targetLatencyMillis;
+            }
+        }
+
+        public static class Reindex {
+
+            private int chunkSize = 1000;
+
+            private int concurrency = 4;
+
+            private boolean deletePreviousIndex = true;
+
+            public int getChunkSize() {
+                return chunkSize;
+            }
+
+            public void setChunkSize(int chunkSize) {
+                this.chunkSize = chunkSize;
+            }
+
+            public int getConcurrency() {
+                return concurrency;
+            }
+
+            public void setConcurrency(int concurrency) {
+                this.concurrency = concurrency;
+            }
+
+            public boolean isDeletePreviousIndex() {
+                return deletePreviousIndex;
+            }
+
+            public void setDeletePreviousIndex(boolean deletePreviousIndex) {
+                this.deletePreviousIndex = deletePreviousIndex;
+            }
+        }
+
+        public static class Reconcile {
+
+            private boolean enabled = true;
+
+            private long initialDelaySeconds = 300;
+
+            private long intervalSeconds = 3600;
+
+            private long rangeSize = 100000;
+
+            private int fanout = 10;
+
+            private long leafRangeSize = 1000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getInitialDelaySeconds() {
+                return initialDelaySeconds;
+            }
+
+            public void setInitialDelaySeconds(long initialDelaySeconds) {
+                this.initialDelaySeconds = initialDelaySeconds;
+            }
+
+            public long getIntervalSeconds() {
+                return intervalSeconds;
+            }
+
+            public void setIntervalSeconds(long intervalSeconds) {
+                this.intervalSeconds = intervalSeconds;
+            }
+
+            public long getRangeSize() {
+                return rangeSize;
+            }
+
+            public void setRangeSize(long rangeSize) {
+                this.rangeSize = rangeSize;
+            }
+
+            public int getFanout() {
+                return fanout;
+            }
+
+            public void setFanout(int fanout) {
+                this.fanout = fanout;
+            }
+
+            public long getLeafRangeSize() {
+                return leafRangeSize;
+            }
+
+            public void setLeafRangeSize(long leafRangeSize) {
+                this.leafRangeSize = leafRangeSize;
+            }
+        }
+    }
+
+    public static class Search {
+
+        private int maxQueryCost = 100;
+
+        private int maxQueryClauses = 32;
+
+        private int maxFuzzyEdits = 1;
+
+        private int heavyQueryCost = 20;
+
+        private int heavyQueryTrackTotalHitsUpTo = 10000;
+
+        private long timeoutMillis = 2000;
+
+        private final Fallback fallback = new Fallback();
+
+        public int getMaxQueryCost() {
+            return maxQueryCost;
+        }
+
+        public void setMaxQueryCost(int maxQueryCost) {
+            this.maxQueryCost = maxQueryCost;
+        }
+
+        public int getMaxQueryClauses() {
+            return maxQueryClauses;
+        }
+
+        public void setMaxQueryClauses(int maxQueryClauses) {
+            this.maxQueryClauses = maxQueryClauses;
+        }
+
+        public int getMaxFuzzyEdits() {
+            return maxFuzzyEdits;
+        }
+
+        public void setMaxFuzzyEdits(int maxFuzzyEdits) {
+            this.maxFuzzyEdits = maxFuzzyEdits;
+        }
+
+        public int getHeavyQueryCost() {
+            return heavyQueryCost;
+        }
+
+        public void setHeavyQueryCost(int heavyQueryCost) {
+            this.heavyQueryCost = heavyQueryCost;
+        }
+
+        public int getHeavyQueryTrackTotalHitsUpTo() {
+            return heavyQueryTrackTotalHitsUpTo;
+        }
+
+        public void setHeavyQueryTrackTotalHitsUpTo(int heavyQueryTrackTotalHitsUpTo) {
+            this.heavyQueryTrackTotalHitsUpTo = heavyQueryTrackTotalHitsUpTo;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public Fallback getFallback() {
+            return fallback;
+        }
+
+        public static class Fallback {
+
+            private boolean enabled = true;
+
+            private int maxResults = 1000;
+
+            private int maxWords = 16;
+
+            private float failureRateThreshold = 50;
+
+            private int slidingWindowSize = 20;
+
+            private int minimumNumberOfCalls = 10;
+
+            private int waitDurationInOpenStateSeconds = 30;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxResults() {
+                return maxResults;
+            }
+
+            public void setMaxResults(int maxResults) {
+                this.maxResults = maxResults;
+            }
+
+            public int getMaxWords() {
+                return maxWords;
+            }
+
+            public void setMaxWords(int maxWords) {
+                this.maxWords = maxWords;
+            }
+
+            public float getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+
+            public void setFailureRateThreshold(float failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+            }
+
+            public int getSlidingWindowSize() {
+                return slidingWindowSize;
+            }
+
+            public void setSlidingWindowSize(int slidingWindowSize) {
+                this.slidingWindowSize = slidingWindowSize;
+            }
+
+            public int getMinimumNumberOfCalls() {
+                return minimumNumberOfCalls;
+            }
+
+            public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+                this.minimumNumberOfCalls = minimumNumberOfCalls;
+            }
+
+            public int getWaitDurationInOpenStateSeconds() {
+                return waitDurationInOpenStateSeconds;
+            }
+
+            public void setWaitDurationInOpenStateSeconds(int waitDurationInOpenStateSeconds) {
+                this.waitDurationInOpenStateSeconds = waitDurationInOpenStateSeconds;
+            }
+        }
+    }
+
+    public static class Broker {
+
+        private final Consume consume = new Consume();
+
+        private final Publish publish = new Publish();
+
+        private final Changes changes = new Changes();
+
+        private final Updates updates = new Updates();
+
+        public Consume getConsume() {
+            return consume;
+        }
+
+        public Publish getPublish() {
+            return publish;
+        }
+
+        public Changes getChanges() {
+            return changes;
+        }
+
+        public Updates getUpdates() {
+            return updates;
+        }
+
+        public static class Consume {
+
+            private int bufferSize = 1024;
+
+            private int replaySize = 1000;
+
+            private int heartbeatIntervalSeconds = 15;
+
+            private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+            public int getBufferSize() {
+                return bufferSize;
+            }
+
+            public void setBufferSize(int bufferSize) {
+                this.bufferSize = bufferSize;
+            }
+
+            public int getReplaySize() {
+                return replaySize;
+            }
+
+            public void setReplaySize(int replaySize) {
+                this.replaySize = replaySize;
+            }
+
+            public int getHeartbeatIntervalSeconds() {
+                return heartbeatIntervalSeconds;
+            }
+
+            public void setHeartbeatIntervalSeconds(int heartbeatIntervalSeconds) {
+                this.heartbeatIntervalSeconds = heartbeatIntervalSeconds;
+            }
+
+            public OverflowPolicy getOverflowPolicy() {
+                return overflowPolicy;
+            }
+
+            public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+                this.overflowPolicy = overflowPolicy;
+            }
+
+            /**
+             * What happens to a message for a subscriber whose buffer is full.
+             */
+            public enum OverflowPolicy {
+                /**
+                 * The oldest buffered message is dropped to make room for the new one.
+                 */
+                DROP_OLDEST,
+                /**
+                 * The new message is dropped.
+                 */
+                DROP_LATEST,
+                /**
+                 * The subscriber is disconnected.
+                 */
+                DISCONNECT,
+            }
+        }
+
+        public static class Publish {
+
+            private int chunkSize = 500;
+
+            private int maxInFlightChunks = 4;
+
+            public int getChunkSize() {
+                return chunkSize;
+            }
+
+            public void setChunkSize(int chunkSize) {
+                this.chunkSize = chunkSize;
+            }
+
+            public int getMaxInFlightChunks() {
+                return maxInFlightChunks;
+            }
+
+            public void setMaxInFlightChunks(int maxInFlightChunks) {
+                this.maxInFlightChunks = maxInFlightChunks;
+            }
+        }
+
+        public static class Changes {
+
+            private boolean enabled = true;
+
+            private String topic = "userinfo-changes";
+
+            private int partitions = 6;
+
+            private short replicas = 1;
+
+            private long pollIntervalMillis = 500;
+
+            private int batchSize = 500;
+
+            private long claimTimeoutMillis = 60000;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getTopic() {
+                return topic;
+            }
+
+            public void setTopic(String topic) {
+                this.topic = topic;
+            }
+
+            public int getPartitions() {
+                return partitions;
+            }
+
+            public void setPartitions(int partitions) {
+                this.partitions = partitions;
+            }
+
+            public short getReplicas() {
+                return replicas;
+            }
+
+            public void setReplicas(short replicas) {
+                this.replicas = replicas;
+            }
+
+            public long getPollIntervalMillis() {
+                return pollIntervalMillis;
+            }
+
+            public void setPollIntervalMillis(long pollIntervalMillis) {
+                this.pollIntervalMillis = pollIntervalMillis;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getClaimTimeoutMillis() {
+                return claimTimeoutMillis;
+            }
+
+            public void setClaimTimeoutMillis(long claimTimeoutMillis) {
+                this.claimTimeoutMillis = claimTimeoutMillis;
+            }
+        }
+
+        public static class Updates {
+
+            private int concurrency = 4;
+
+            private int maxRetries = 5;
+
+            private long retryBackoffMillis = 1000;
+
+            private String deadLetterTopic = "userinfo-updates.DLT";
+
+            public int getConcurrency() {
+                return concurrency;
+            }
+
+            public void setConcurrency(int concurrency) {
+                this.concurrency = concurrency;
+            }
+
+            public int getMaxRetries() {
+                return maxRetries;
+            }
+
+            public void setMaxRetries(int maxRetries) {
+                this.maxRetries = maxRetries;
+            }
+
+            public long getRetryBackoffMillis() {
+                return retryBackoffMillis;
+            }
+
+            public void setRetryBackoffMillis(long retryBackoffMillis) {
+                this.retryBackoffMillis = retryBackoffMillis;
+            }
+
+            public String getDeadLetterTopic() {
+                return deadLetterTopic;
+            }
+
+            public void setDeadLetterTopic(String deadLetterTopic) {
+                this.deadLetterTopic = deadLetterTopic;
+            }
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
@@ -0,0 +1,89 @@
+package com.dnc.mprs.userservice.config;
+
+import com.dnc.mprs.userservice.domain.UserInfo;
+import com.dnc.mprs.userservice.service.UserInfoQueryCache;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Local Caffeine caches used by the service layer.
+ * <p>
+ * Caches are registered in the {@link MeterRegistry}, so hit, miss and eviction counts are
+ * exported with the other {@code cache.*} metrics on the Prometheus endpoint.
+ */
+@Configuration
+public class CacheConfiguration {
+
+    public static final String USER_INFO_CACHE = "userInfo";
+
+    public static final String USER_INFO_COUNT_CACHE = "userInfoCount";
+
+    public static final String USER_INFO_QUERY_CACHE = "userInfoQuery";
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    @Bean
+    public AsyncCache<Long, UserInfo> userInfoCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.Cache.UserInfo properties = applicationProperties.getCache().getUserInfo();
+        LOG.debug(
+            "Creating {} cache with {} max entries and a TTL of {}s",
+            USER_INFO_CACHE,
+            properties.getMaxEntries(),
+            properties.getTimeToLiveSeconds()
+        );
+        AsyncCache<Long, UserInfo> cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .expireAfterWrite(Duration.ofSeconds(properties.getTimeToLiveSeconds()))
+            .recordStats()
+            .buildAsync();
+        new CaffeineCacheMetrics<>(cache.synchronous(), USER_INFO_CACHE, Tags.empty()).bindTo(meterRegistry);
+        return cache;
+    }
+
+    @Bean
+    public AsyncCache<String, Long> userInfoCountCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        int timeToLiveSeconds = applicationProperties.getPagination().getCountCacheTimeToLiveSeconds();
+        LOG.debug("Creating {} cache with a TTL of {}s", USER_INFO_COUNT_CACHE, timeToLiveSeconds);
+        AsyncCache<String, Long> cache = Caffeine.newBuilder()
+            .maximumSize(1)
+            .expireAfterWrite(Duration.ofSeconds(timeToLiveSeconds))
+            .recordStats()
+            .buildAsync();
+        new CaffeineCacheMetrics<>(cache.synchronous(), USER_INFO_COUNT_CACHE, Tags.empty()).bindTo(meterRegistry);
+        return cache;
+    }
+
+    @Bean
+    public AsyncCache<UserInfoQueryCache.Key, Object> userInfoQueryResultCache(
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        ApplicationProperties.Cache.Query properties = applicationProperties.getCache().getQuery();
+        LOG.debug(
+            "Creating {} cache with {} max entries and a TTL of {}s",
+            USER_INFO_QUERY_CACHE,
+            properties.getMaxEntries(),
+            properties.getTimeToLiveSeconds()
+        );
+        AsyncCache<UserInfoQueryCache.Key, Object> cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxEntries())
+            .expireAfterWrite(Duration.ofSeconds(properties.getTimeToLiveSeconds()))
+            .recordStats()
+            .buildAsync();
+        new CaffeineCacheMetrics<>(cache.synchronous(), USER_INFO_QUERY_CACHE, Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.synchronous().stats().hitRate())
+            .description("Ratio of the cache requests which were hits, since startup")
+            .tag("cache", USER_INFO_QUERY_CACHE)
+            .register(meterRegistry);
+        return cache;
+    }
+}
@@ -0,0 +1,52 @@
+package com.dnc.mprs.userservice.config;
+
+import com.dnc.mprs.userservice.repository.search.QueryTooExpensiveException;
+import com.dnc.mprs.userservice.service.UserInfoService;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import java.time.Duration;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Resilience4j circuit breakers.
+ * <p>
+ * The circuit breaker of the UserInfo searches falls back to the database while Elasticsearch fails. Its time limit
+ * leaves a margin over the search timeout, so that slow searches are reported by Elasticsearch first; rejected queries
+ * are not failures of Elasticsearch, and are ignored.
+ */
+@Configuration
+public class CircuitBreakerConfiguration {
+
+    private static final Duration TIME_LIMIT_MARGIN = Duration.ofSeconds(1);
+
+    @Bean
+    public Customizer<ReactiveResilience4JCircuitBreakerFactory> userInfoSearchCircuitBreakerCustomizer(
+        ApplicationProperties applicationProperties
+    ) {
+        ApplicationProperties.Search search = applicationProperties.getSearch();
+        ApplicationProperties.Search.Fallback fallback = search.getFallback();
+        return factory ->
+            factory.configure(
+                builder ->
+                    builder
+                        .timeLimiterConfig(
+                            TimeLimiterConfig.custom()
+                                .timeoutDuration(Duration.ofMillis(search.getTimeoutMillis()).plus(TIME_LIMIT_MARGIN))
+                                .build()
+                        )
+                        .circuitBreakerConfig(
+                            CircuitBreakerConfig.custom()
+                                .failureRateThreshold(fallback.getFailureRateThreshold())
+                                .slidingWindowSize(fallback.getSlidingWindowSize())
+                                .minimumNumberOfCalls(fallback.getMinimumNumberOfCalls())
+                                .waitDurationInOpenState(Duration.ofSeconds(fallback.getWaitDurationInOpenStateSeconds()))
+                                .ignoreExceptions(QueryTooExpensiveException.class)
+                                .build()
+                        ),
+                UserInfoService.SEARCH_CIRCUIT_BREAKER
+            );
+    }
+}
@@ -0,0 +1,35 @@
+package com.dnc.mprs.userservice.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Declares the Kafka topics written by the application, which the {@code KafkaAdmin} creates at startup when they do
+ * not exist.
+ */
+@Configuration
+public class KafkaTopicConfiguration {
+
+    /**
+     * The UserInfo change topic, compacted so that it keeps the last event of every UserInfo, and can be read from the
+     * beginning to load all the UserInfos.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "application.broker.changes", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public NewTopic userInfoChangeTopic(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Broker.Changes changes = applicationProperties.getBroker().getChanges();
+        return TopicBuilder.name(changes.getTopic()).partitions(changes.getPartitions()).replicas(changes.getReplicas()).compact().build();
+    }
+
+    /**
+     * The dead letter topic of the UserInfo update commands, where the commands of the batches which could not be
+     * written are kept, to be replayed once fixed.
+     */
+    @Bean
+    public NewTopic userInfoUpdatesDeadLetterTopic(ApplicationProperties applicationProperties) {
+        return TopicBuilder.name(applicationProperties.getBroker().getUpdates().getDeadLetterTopic()).build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.dnc.mprs.userservice.config;
+
+import com.dnc.mprs.userservice.service.UserInfoUpdateIngester;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.stream.config.ListenerContainerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+/**
+ * Binds the UserInfo update commands topic to the {@link UserInfoUpdateIngester}.
+ */
+@Configuration
+public class UserInfoUpdatesConfiguration {
+
+    /**
+     * Consumer of the {@code userInfoUpdates-in-0} binding, in batch mode: it gets the records of a poll, and returns
+     * once they are written, so that the offsets committed after the batch are never ahead of the database. The
+     * records of a partition come in order, so the commands of a UserInfo, keyed by its id, are applied in order.
+     * A failed batch is delivered again by the error handler of the binding: the commands are idempotent.
+     */
+    @Bean
+    public Consumer<List<byte[]>> userInfoUpdates(UserInfoUpdateIngester userInfoUpdateIngester) {
+        // the listener thread of the binder, which may block, waits for the writes
+        return commands -> userInfoUpdateIngester.ingest(commands).block();
+    }
+
+    /**
+     * Error handler of the {@code userInfoUpdates-in-0} binding: the records of a failed batch are delivered again,
+     * after an exponential backoff, up to the configured number of retries, which rides out a short outage of the
+     * database. The records of a batch which still fails are published, unchanged, to the dead letter topic, before
+     * their offsets are committed, so that no command is lost.
+     */
+    @Bean
+    public ListenerContainerCustomizer<AbstractMessageListenerContainer<?, ?>> userInfoUpdatesErrorHandler(
+        ApplicationProperties applicationProperties,
+        ProducerFactory<?, ?> producerFactory,
+        @Value("${spring.cloud.stream.bindings.userInfoUpdates-in-0.destination:userinfo-updates}") String destination
+    ) {
+        ApplicationProperties.Broker.Updates properties = applicationProperties.getBroker().getUpdates();
+        // the binder consumes the raw records, which are published as they are
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<byte[], byte[]> deadLetterTemplate = new KafkaTemplate<>(
+            (ProducerFactory<byte[], byte[]>) producerFactory,
+            Map.of(
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG,
+                ByteArraySerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                ByteArraySerializer.class
+            )
+        );
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterTemplate, (record, e) ->
+            new TopicPartition(properties.getDeadLetterTopic(), -1)
+        );
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(properties.getMaxRetries());
+        backOff.setInitialInterval(properties.getRetryBackoffMillis());
+        backOff.setMultiplier(2);
+        return (container, destinationName, group) -> {
+            if (destination.equals(destinationName)) {
+                container.setCommonErrorHandler(new DefaultErrorHandler(recoverer, backOff));
+            }
+        };
+    }
+}
@@ -13,6 +13,8 @@ import org.springframework.data.relational.core.mapping.Table;
  */
 @Table("user_info")
 @org.springframework.data.elasticsearch.annotations.Document(indexName = "userinfo")
+@org.springframework.data.elasticsearch.annotations.Setting(settingPath = "/config/elasticsearch/userinfo-settings.json")
+@org.springframework.data.elasticsearch.annotations.Mapping(mappingPath = "/config/elasticsearch/userinfo-mapping.json")
 @SuppressWarnings("common-java:DuplicatedBlocks")
 public class UserInfo implements Serializable {
 
@@ -0,0 +1,10 @@
+package com.dnc.mprs.userservice.domain.enumeration;
+
+/**
+ * The kind of change of a UserInfo, published as a change event.
+ */
+public enum UserInfoChangeType {
+    CREATED,
+    UPDATED,
+    DELETED,
+}
@@ -0,0 +1,104 @@
+package com.dnc.mprs.userservice.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Translates a {@code query_string} query into an InnoDB {@code MATCH ... AGAINST (... IN BOOLEAN MODE)} search,
+ * for the fallback search on the database.
+ * <p>
+ * Only the words of the query are kept: field names, ranges, boosts and fuzziness are dropped, and so are the operators
+ * apart from the negations, the words being matched with an {@code OR} and ranked by relevance. Trailing wildcards are
+ * kept as prefix searches.
+ * <p>
+ * Like in Elasticsearch, a query with negated words only matches all the rows but the ones with these words: such
+ * rows cannot be searched with {@code MATCH}, as a boolean mode search without a positive word matches nothing, so the
+ * words are returned as {@link #getExclusions() exclusions}, for a {@code NOT MATCH} filter.
+ */
+public final class FullTextQuery {
+
+    private static final Set<String> OPERATORS = Set.of("AND", "OR", "&&", "||");
+
+    private static final Set<String> NEGATIONS = Set.of("NOT", "!");
+
+    private static final Pattern RANGES = Pattern.compile("[\\[{][^\\]}]*[\\]}]");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s()]+");
+
+    private static final Pattern SUFFIXES = Pattern.compile("([~^][\\d.]*)+$");
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}_]+");
+
+    private final String booleanMode;
+
+    private final String exclusions;
+
+    private FullTextQuery(String booleanMode, String exclusions) {
+        this.booleanMode = booleanMode;
+        this.exclusions = exclusions;
+    }
+
+    /**
+     * Translate a query.
+     *
+     * @param queryString the {@code query_string} query.
+     * @param maxWords the maximum number of words to keep.
+     * @return the translated query.
+     */
+    public static FullTextQuery of(String queryString, int maxWords) {
+        if (queryString == null) {
+            return new FullTextQuery("", "");
+        }
+        List<String> words = new ArrayList<>();
+        List<String> negatedWords = new ArrayList<>();
+        boolean negateNext = false;
+        for (String token : SEPARATORS.split(RANGES.matcher(queryString).replaceAll(" "))) {
+            if (token.isEmpty() || OPERATORS.contains(token)) {
+                continue;
+            }
+            if (NEGATIONS.contains(token)) {
+                negateNext = true;
+                continue;
+            }
+            boolean negated = negateNext || token.startsWith("-") || token.startsWith("!");
+            negateNext = false;
+            String value = token.substring(token.lastIndexOf(':') + 1).replace("\\", "");
+            value = SUFFIXES.matcher(value).replaceFirst("");
+            boolean prefix = value.endsWith("*");
+            String[] parts = NON_WORD.split(value);
+            for (int i = 0; i < parts.length && words.size() < maxWords; i++) {
+                if (parts[i].isEmpty()) {
+                    continue;
+                }
+                boolean last = i == parts.length - 1;
+                String word = parts[i] + (prefix && last ? "*" : "");
+                words.add((negated ? "-" : "") + word);
+                if (negated) {
+                    negatedWords.add(word);
+                }
+            }
+        }
+        if (negatedWords.size() < words.size()) {
+            return new FullTextQuery(String.join(" ", words), "");
+        }
+        return new FullTextQuery("", String.join(" ", negatedWords));
+    }
+
+    /**
+     * @return the boolean mode search of the matching rows, empty when the query has no positive word, like {@code *}
+     * or {@code -smith}.
+     */
+    public String getBooleanMode() {
+        return booleanMode;
+    }
+
+    /**
+     * @return when the query has negated words only, the boolean mode search of the rows which do not match, without
+     * the negations: the other rows match. Empty otherwise.
+     */
+    public String getExclusions() {
+        return exclusions;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dnc.mprs.userservice.repository;
+
+import java.util.Objects;
+
+/**
+ * Checksum of the UserInfos of an id range, computed the same way from the database and from the search index, to
+ * find where they differ without comparing every row.
+ * <p>
+ * Each row contributes {@code (id * 1000003 + updated_at epoch seconds) mod 2147483647}, a missing {@code updated_at}
+ * counting as 0, and the range checksum is the sum of the contributions.
+ */
+public final class IdRangeChecksum {
+
+    /**
+     * Multiplier of the id in the row contribution.
+     */
+    public static final long ID_MULTIPLIER = 1000003L;
+
+    /**
+     * Modulus of the row contribution, which keeps range sums exact when summed as doubles by the search index.
+     */
+    public static final long MODULUS = 2147483647L;
+
+    private final long from;
+
+    private final long count;
+
+    private final long checksum;
+
+    public IdRangeChecksum(long from, long count, long checksum) {
+        this.from = from;
+        this.count = count;
+        this.checksum = checksum;
+    }
+
+    /**
+     * @return the first id of the range.
+     */
+    public long getFrom() {
+        return from;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdRangeChecksum)) {
+            return false;
+        }
+        IdRangeChecksum other = (IdRangeChecksum) o;
+        return from == other.from && count == other.count && checksum == other.checksum;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, count, checksum);
+    }
+
+    @Override
+    public String toString() {
+        return "IdRangeChecksum{from=" + from + ", count=" + count + ", checksum=" + checksum + "}";
+    }
+}
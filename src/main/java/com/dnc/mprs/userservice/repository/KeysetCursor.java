@@ -0,0 +1,85 @@
+package com.dnc.mprs.userservice.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position of the last row of a keyset (seek) page: the sort property and direction, the sort value of
+ * the last row and its id, used as a tiebreaker.
+ * <p>
+ * A cursor is exchanged with clients as an opaque, URL safe token, see {@link #encode()} and {@link #decode(String)}.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final String property;
+
+    private final Sort.Direction direction;
+
+    private final Long id;
+
+    private final String value;
+
+    public KeysetCursor(String property, Sort.Direction direction, Long id, String value) {
+        this.property = Objects.requireNonNull(property, "property is null");
+        this.direction = Objects.requireNonNull(direction, "direction is null");
+        this.id = Objects.requireNonNull(id, "id is null");
+        this.value = Objects.requireNonNull(value, "value is null");
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return the sort order this cursor was created for.
+     */
+    public Sort.Order getOrder() {
+        return new Sort.Order(direction, property);
+    }
+
+    /**
+     * @return the opaque token representation of this cursor.
+     */
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token created by {@link #encode()}.
+     *
+     * @param token the opaque token.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static KeysetCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        // the value is last, so it may itself contain the separator
+        String[] parts = raw.split(SEPARATOR, 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new KeysetCursor(parts[0], Sort.Direction.fromString(parts[1]), Long.valueOf(parts[2]), parts[3]);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{property='" + property + "', direction=" + direction + ", id=" + id + ", value='" + value + "'}";
+    }
+}
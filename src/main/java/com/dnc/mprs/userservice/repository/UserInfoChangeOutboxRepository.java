@@ -0,0 +1,198 @@
+package com.dnc.mprs.userservice.repository;
+
+import com.dnc.mprs.userservice.domain.enumeration.UserInfoChangeType;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repository for the {@code user_info_change_outbox} table, which records the UserInfo changes to publish as change
+ * events.
+ * <p>
+ * Entries are written in the same transaction as the {@code user_info} change they stand for, and drained
+ * asynchronously, in the order they were written: they are claimed for a while, published, then deleted.
+ */
+@Repository
+public class UserInfoChangeOutboxRepository {
+
+    private final DatabaseClient db;
+
+    public UserInfoChangeOutboxRepository(DatabaseClient db) {
+        this.db = db;
+    }
+
+    /**
+     * Record changes of several UserInfos, with a single statement.
+     *
+     * @param changeTypesByUserInfoId the kind of change, by id of the changed UserInfo.
+     * @return a {@link Mono} completing once the entries are written.
+     */
+    public Mono<Void> enqueueAll(Map<Long, UserInfoChangeType> changeTypesByUserInfoId) {
+        if (changeTypesByUserInfoId.isEmpty()) {
+            return Mono.empty();
+        }
+        StringBuilder values = new StringBuilder();
+        for (int row = 0; row < changeTypesByUserInfoId.size(); row++) {
+            values.append(row == 0 ? "" : ", ").append("(:userInfoId").append(row).append(", :changeType").append(row).append(", :now)");
+        }
+        DatabaseClient.GenericExecuteSpec spec = db
+            .sql("INSERT INTO user_info_change_outbox (user_info_id, change_type, created_at) VALUES " + values)
+            .bind("now", LocalDateTime.now(ZoneOffset.UTC));
+        int row = 0;
+        for (Map.Entry<Long, UserInfoChangeType> change : changeTypesByUserInfoId.entrySet()) {
+            spec = spec.bind("userInfoId" + row, change.getKey()).bind("changeType" + row, change.getValue().name());
+            row++;
+        }
+        return spec.then();
+    }
+
+    /**
+     * Record an {@link UserInfoChangeType#UPDATED} change of every UserInfo, with a single statement, so that the
+     * current state of all of them is published.
+     *
+     * @return the number of entries written.
+     */
+    public Mono<Long> enqueueAllUserInfos() {
+        return db
+            .sql(
+                "INSERT INTO user_info_change_outbox (user_info_id, change_type, created_at) " +
+                "SELECT id, :changeType, :now FROM user_info ORDER BY id"
+            )
+            .bind("changeType", UserInfoChangeType.UPDATED.name())
+            .bind("now", LocalDateTime.now(ZoneOffset.UTC))
+            .fetch()
+            .rowsUpdated();
+    }
+
+    /**
+     * Claim the oldest entries which are not claimed, or whose claim expired, until the given instant. Entries of the
+     * UserInfos which have entries claimed by another caller are skipped, so that the changes of a UserInfo are
+     * published by a single caller at a time, in order.
+     * <p>
+     * Must be called in a transaction: the candidates are locked, so that concurrent callers wait for them to be
+     * claimed, then the UserInfos with claimed entries are read again, once the locks are held, to see the claims
+     * committed meanwhile.
+     *
+     * @param now the current instant.
+     * @param claimedUntil the instant the claim expires at, after which the entries can be claimed again.
+     * @param limit the maximum number of entries.
+     * @return the claimed entries, oldest first.
+     */
+    public Mono<List<Entry>> claimOldest(Instant now, Instant claimedUntil, int limit) {
+        LocalDateTime nowUtc = LocalDateTime.ofInstant(now, ZoneOffset.UTC);
+        return db
+            .sql(
+                "SELECT id, user_info_id, change_type FROM user_info_change_outbox " +
+                "WHERE claimed_until IS NULL OR claimed_until <= :now ORDER BY id LIMIT :limit FOR UPDATE"
+            )
+            .bind("now", nowUtc)
+            .bind("limit", limit)
+            .map(row ->
+                new Entry(
+                    row.get("id", Long.class),
+                    row.get("user_info_id", Long.class),
+                    UserInfoChangeType.valueOf(row.get("change_type", String.class))
+                )
+            )
+            .all()
+            .collectList()
+            .flatMap(candidates -> {
+                if (candidates.isEmpty()) {
+                    return Mono.just(candidates);
+                }
+                Set<Long> userInfoIds = candidates.stream().map(Entry::getUserInfoId).collect(Collectors.toSet());
+                return db
+                    .sql(
+                        "SELECT DISTINCT user_info_id FROM user_info_change_outbox " +
+                        "WHERE user_info_id IN (:userInfoIds) AND claimed_until > :now"
+                    )
+                    .bind("userInfoIds", userInfoIds)
+                    .bind("now", nowUtc)
+                    .map(row -> row.get("user_info_id", Long.class))
+                    .all()
+                    .collect(Collectors.toSet())
+                    .map(claimed -> candidates.stream().filter(entry -> !claimed.contains(entry.getUserInfoId())).toList());
+            })
+            .flatMap(entries ->
+                entries.isEmpty()
+                    ? Mono.just(entries)
+                    : db
+                        .sql("UPDATE user_info_change_outbox SET claimed_until = :claimedUntil WHERE id IN (:ids)")
+                        .bind("claimedUntil", LocalDateTime.ofInstant(claimedUntil, ZoneOffset.UTC))
+                        .bind("ids", entries.stream().map(Entry::getId).toList())
+                        .then()
+                        .thenReturn(entries)
+            );
+    }
+
+    /**
+     * Release claimed entries, so that they can be claimed again right away.
+     *
+     * @param ids the ids of the entries.
+     * @return a {@link Mono} completing once the entries are released.
+     */
+    public Mono<Void> releaseAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return db.sql("UPDATE user_info_change_outbox SET claimed_until = NULL WHERE id IN (:ids)").bind("ids", ids).then();
+    }
+
+    /**
+     * Delete published entries.
+     *
+     * @param ids the ids of the entries.
+     * @return a {@link Mono} completing once the entries are deleted.
+     */
+    public Mono<Void> deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return db.sql("DELETE FROM user_info_change_outbox WHERE id IN (:ids)").bind("ids", ids).then();
+    }
+
+    /**
+     * Count the pending entries.
+     *
+     * @return the number of pending entries.
+     */
+    public Mono<Long> count() {
+        return db.sql("SELECT COUNT(*) AS pending FROM user_info_change_outbox").map(row -> row.get("pending", Long.class)).one();
+    }
+
+    /**
+     * A pending change event.
+     */
+    public static final class Entry {
+
+        private final Long id;
+        private final Long userInfoId;
+        private final UserInfoChangeType changeType;
+
+        public Entry(Long id, Long userInfoId, UserInfoChangeType changeType) {
+            this.id = id;
+            this.userInfoId = userInfoId;
+            this.changeType = changeType;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Long getUserInfoId() {
+            return userInfoId;
+        }
+
+        public UserInfoChangeType getChangeType() {
+            return changeType;
+        }
+    }
+}
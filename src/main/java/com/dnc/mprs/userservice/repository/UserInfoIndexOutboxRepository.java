@@ -0,0 +1,136 @@
+package com.dnc.mprs.userservice.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Repository for the {@code user_info_index_outbox} table, which records the UserInfo rows whose
+ * search index document has to be refreshed.
+ * <p>
+ * Entries are written in the same transaction as the {@code user_info} change they stand for, and
+ * drained asynchronously.
+ */
+@Repository
+public class UserInfoIndexOutboxRepository {
+
+    private final DatabaseClient db;
+
+    public UserInfoIndexOutboxRepository(DatabaseClient db) {
+        this.db = db;
+    }
+
+    /**
+     * Record that the search index documents of several UserInfos have to be refreshed, with a single statement.
+     *
+     * @param userInfoIds the ids of the changed UserInfos.
+     * @return a {@link Mono} completing once the entries are written.
+     */
+    public Mono<Void> enqueueAll(Collection<Long> userInfoIds) {
+        if (userInfoIds.isEmpty()) {
+            return Mono.empty();
+        }
+        String values = IntStream.range(0, userInfoIds.size())
+            .mapToObj(row -> "(:userInfoId" + row + ", :now, 0, :now)")
+            .collect(Collectors.joining(", "));
+        DatabaseClient.GenericExecuteSpec spec = db
+            .sql("INSERT INTO user_info_index_outbox (user_info_id, created_at, attempts, next_attempt_at) VALUES " + values)
+            .bind("now", LocalDateTime.now(ZoneOffset.UTC));
+        int row = 0;
+        for (Long userInfoId : userInfoIds) {
+            spec = spec.bind("userInfoId" + row++, userInfoId);
+        }
+        return spec.then();
+    }
+
+    /**
+     * Get the oldest entries which are due at the given instant.
+     *
+     * @param now the current instant.
+     * @param limit the maximum number of entries.
+     * @return the due entries, oldest first.
+     */
+    public Flux<Entry> findDue(Instant now, int limit) {
+        return db
+            .sql(
+                "SELECT id, user_info_id, attempts FROM user_info_index_outbox " +
+                "WHERE next_attempt_at <= :now ORDER BY id LIMIT :limit"
+            )
+            .bind("now", LocalDateTime.ofInstant(now, ZoneOffset.UTC))
+            .bind("limit", limit)
+            .map(row -> new Entry(row.get("id", Long.class), row.get("user_info_id", Long.class), row.get("attempts", Integer.class)))
+            .all();
+    }
+
+    /**
+     * Delete processed entries.
+     *
+     * @param ids the ids of the entries.
+     * @return a {@link Mono} completing once the entries are deleted.
+     */
+    public Mono<Void> deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.empty();
+        }
+        return db.sql("DELETE FROM user_info_index_outbox WHERE id IN (:ids)").bind("ids", ids).then();
+    }
+
+    /**
+     * Postpone an entry whose processing failed.
+     *
+     * @param id the id of the entry.
+     * @param nextAttemptAt the instant of the next attempt.
+     * @return a {@link Mono} completing once the entry is updated.
+     */
+    public Mono<Void> reschedule(Long id, Instant nextAttemptAt) {
+        return db
+            .sql("UPDATE user_info_index_outbox SET attempts = attempts + 1, next_attempt_at = :nextAttemptAt WHERE id = :id")
+            .bind("nextAttemptAt", LocalDateTime.ofInstant(nextAttemptAt, ZoneOffset.UTC))
+            .bind("id", id)
+            .then();
+    }
+
+    /**
+     * Count the pending entries.
+     *
+     * @return the number of pending entries.
+     */
+    public Mono<Long> count() {
+        return db.sql("SELECT COUNT(*) AS pending FROM user_info_index_outbox").map(row -> row.get("pending", Long.class)).one();
+    }
+
+    /**
+     * A pending search index refresh.
+     */
+    public static final class Entry {
+
+        private final Long id;
+        private final Long userInfoId;
+        private final int attempts;
+
+        public Entry(Long id, Long userInfoId, Integer attempts) {
+            this.id = id;
+            this.userInfoId = userInfoId;
+            this.attempts = attempts == null ? 0 : attempts;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Long getUserInfoId() {
+            return userInfoId;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.dnc.mprs.userservice.repository;
 
 import com.dnc.mprs.userservice.domain.UserInfo;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
@@ -15,6 +19,8 @@ import reactor.core.publisher.Mono;
 public interface UserInfoRepository extends ReactiveCrudRepository<UserInfo, Long>, UserInfoRepositoryInternal {
     Flux<UserInfo> findAllBy(Pageable pageable);
 
+    Flux<UserInfo> findAllBy(Pageable pageable, KeysetCursor after);
+
     @Override
     <S extends UserInfo> Mono<S> save(S entity);
 
@@ -33,9 +39,163 @@ interface UserInfoRepositoryInternal {
 
     Flux<UserInfo> findAllBy(Pageable pageable);
 
+    /**
+     * Keyset (seek) pagination: return the page of rows following {@code after}, ordered by the first
+     * sort order of {@code pageable} with the id as tiebreaker. The offset of {@code pageable} is ignored.
+     *
+     * @param pageable the page size and sort order.
+     * @param after the position of the last row of the previous page, or {@code null} for the first page.
+     * @return the rows of the page.
+     */
+    Flux<UserInfo> findAllBy(Pageable pageable, KeysetCursor after);
+
+    /**
+     * Create the cursor pointing after the given row, for the given sort order.
+     *
+     * @param userInfo the last row of a page.
+     * @param order the sort order of the page.
+     * @return the cursor.
+     */
+    KeysetCursor keysetCursorOf(UserInfo userInfo, Sort.Order order);
+
     Flux<UserInfo> findAll();
 
+    /**
+     * Estimate the number of rows from the table statistics, without scanning the table.
+     * InnoDB statistics are approximate and may be off by a large margin on small or recently changed tables.
+     *
+     * @return the estimated number of rows.
+     */
+    Mono<Long> estimateCount();
+
     Mono<UserInfo> findById(Long id);
+
+    /**
+     * Find the rows with the given ids, with one {@code IN (...)} query per batch of ids.
+     * Missing ids are ignored, and the rows are returned in no particular order.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities found.
+     */
+    Flux<UserInfo> findAllByIds(Collection<Long> ids);
+
+    /**
+     * Find the row with the given identity provider user id, with a probe of its unique index.
+     *
+     * @param userId the identity provider user id.
+     * @return the entity, if any.
+     */
+    Mono<UserInfo> findOneByUserId(String userId);
+
+    /**
+     * Find the rows with the given email, with a probe of its index.
+     *
+     * @param email the email.
+     * @return the entities, ordered by id.
+     */
+    Flux<UserInfo> findAllByEmail(String email);
+
+    /**
+     * Update the non-null fields of the given entity, with a single {@code UPDATE} statement.
+     *
+     * @param userInfo the entity holding the id of the row to update, and the fields to update.
+     * @return {@code true} if the row was found, {@code false} otherwise.
+     */
+    Mono<Boolean> updateNonNullFields(UserInfo userInfo);
+
+    /**
+     * Update the non-null fields of the given entities, with a single multi-row {@code UPDATE} statement: each column
+     * is set with a {@code CASE} on the id, whose branches are the entities having a value for it.
+     *
+     * @param userInfos the entities holding the ids of the rows to update, and the fields to update; ids are unique.
+     * @return the ids of the rows found, in the order of the entities.
+     */
+    Mono<List<Long>> updateNonNullFieldsAll(List<UserInfo> userInfos);
+
+    /**
+     * Delete the row with the given id.
+     *
+     * @param id the id of the entity.
+     * @return {@code true} if the row was deleted, {@code false} if it did not exist.
+     */
+    Mono<Boolean> deleteExistingById(Long id);
+
+    /**
+     * Get the ids of the entities with the given identity provider user ids.
+     *
+     * @param userIds the identity provider user ids.
+     * @return the ids, by identity provider user id.
+     */
+    Mono<Map<String, Long>> findIdsByUserIds(Collection<String> userIds);
+
+    /**
+     * Compute the {@link IdRangeChecksum}s of the rows with an id in {@code [from, to)}, split in ranges of
+     * {@code interval} ids. Ranges without rows are omitted.
+     *
+     * @param from the first id.
+     * @param to the id after the last one.
+     * @param interval the number of ids per range.
+     * @return the checksums, by range.
+     */
+    Flux<IdRangeChecksum> checksumIdRanges(long from, long to, long interval);
+
+    /**
+     * Get the {@code updated_at} epoch seconds of the rows with an id in {@code [from, to)}, 0 when not set.
+     *
+     * @param from the first id.
+     * @param to the id after the last one.
+     * @return the {@code updated_at} epoch seconds, by id.
+     */
+    Mono<Map<Long, Long>> findUpdatedAtSecondsByIdRange(long from, long to);
+
+    /**
+     * Insert the given entities, or update the existing entities with the same identity provider user id, with a
+     * single multi-row {@code INSERT ... ON DUPLICATE KEY UPDATE} statement. The ids of the given entities are
+     * ignored, and the creation date of existing entities is kept.
+     *
+     * @param userInfos the entities to insert or update.
+     * @return a {@link Mono} completing once the statement is executed.
+     */
+    Mono<Void> upsertAllByUserId(List<UserInfo> userInfos);
+
+    /**
+     * Search the rows matching a boolean mode full-text search on the firstname, lastname, alias and email, with a
+     * probe of their {@code FULLTEXT} index. The rows are ordered by relevance, then id, and the sort of
+     * {@code pageable} is ignored.
+     *
+     * @param booleanModeQuery the search, see {@link FullTextQuery}.
+     * @param pageable the page.
+     * @return the rows of the page.
+     */
+    Flux<UserInfo> searchFullText(String booleanModeQuery, Pageable pageable);
+
+    /**
+     * Count the rows matching a boolean mode full-text search, up to a limit.
+     *
+     * @param booleanModeQuery the search, see {@link FullTextQuery}.
+     * @param limit the maximum count.
+     * @return the number of matching rows, at most {@code limit}.
+     */
+    Mono<Long> countFullText(String booleanModeQuery, long limit);
+
+    /**
+     * Find the rows which do not match a boolean mode full-text search on the firstname, lastname, alias and email,
+     * ordered by id. The search is evaluated on each row scanned, and the sort of {@code pageable} is ignored.
+     *
+     * @param booleanModeQuery the search of the rows to exclude, see {@link FullTextQuery#getExclusions()}.
+     * @param pageable the page.
+     * @return the rows of the page.
+     */
+    Flux<UserInfo> findAllNotMatchingFullText(String booleanModeQuery, Pageable pageable);
+
+    /**
+     * Count the rows which do not match a boolean mode full-text search, up to a limit.
+     *
+     * @param booleanModeQuery the search of the rows to exclude, see {@link FullTextQuery#getExclusions()}.
+     * @param limit the maximum count.
+     * @return the number of rows which do not match, at most {@code limit}.
+     */
+    Mono<Long> countNotMatchingFullText(String booleanModeQuery, long limit);
     // this is not supported at the moment because of https://github.com/jhipster/generator-jhipster/issues/18269
     // Flux<UserInfo> findAllBy(Pageable pageable, Criteria criteria);
 }
@@ -4,18 +4,37 @@ import com.dnc.mprs.userservice.domain.UserInfo;
 import com.dnc.mprs.userservice.repository.rowmapper.UserInfoRowMapper;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.convert.R2dbcConverter;
 import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.data.r2dbc.repository.support.SimpleR2dbcRepository;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.data.relational.core.sql.Column;
 import org.springframework.data.relational.core.sql.Comparison;
 import org.springframework.data.relational.core.sql.Condition;
 import org.springframework.data.relational.core.sql.Conditions;
 import org.springframework.data.relational.core.sql.Expression;
 import org.springframework.data.relational.core.sql.Select;
 import org.springframework.data.relational.core.sql.SelectBuilder.SelectFromAndJoin;
+import org.springframework.data.relational.core.sql.SqlIdentifier;
 import org.springframework.data.relational.core.sql.Table;
 import org.springframework.data.relational.repository.support.MappingRelationalEntityInformation;
 import org.springframework.r2dbc.core.DatabaseClient;
@@ -37,6 +56,70 @@ class UserInfoRepositoryInternalImpl extends SimpleR2dbcRepository<UserInfo, Lon
 
     private static final Table entityTable = Table.aliased("user_info", EntityManager.ENTITY_ALIAS);
 
+    private static final String KEYSET_VALUE_MARKER = "keyset_value";
+    private static final String KEYSET_ID_MARKER = "keyset_id";
+    private static final String IDS_MARKER = "ids";
+    private static final String USER_ID_MARKER = "user_id";
+    private static final String EMAIL_MARKER = "email";
+    private static final String FULL_TEXT_MARKER = "full_text";
+
+    private static final int EMAIL_MATCHES_LIMIT = 100;
+
+    private static final int IDS_BATCH_SIZE = 500;
+
+    // must list the columns of the ft_user_info_search index, in the same order, for the index to be used
+    private static final String FULL_TEXT_MATCH =
+        "MATCH (firstname, lastname, alias, email) AGAINST (:" + FULL_TEXT_MARKER + " IN BOOLEAN MODE)";
+
+    // datetimes are stored in UTC, TIMESTAMPDIFF does not depend on the session time zone unlike UNIX_TIMESTAMP
+    private static final String UPDATED_AT_SECONDS = "COALESCE(TIMESTAMPDIFF(SECOND, '1970-01-01 00:00:00', updated_at), 0)";
+
+    /**
+     * Columns written by {@link #upsertAllByUserId(List)}, and their value in an entity.
+     */
+    private static final List<UpsertColumn> upsertColumns = List.of(
+        new UpsertColumn("user_id", String.class, UserInfo::getUserId),
+        new UpsertColumn("firstname", String.class, UserInfo::getFirstname),
+        new UpsertColumn("lastname", String.class, UserInfo::getLastname),
+        new UpsertColumn("alias", String.class, UserInfo::getAlias),
+        new UpsertColumn("gender", String.class, userInfo -> userInfo.getGender() == null ? null : userInfo.getGender().name()),
+        new UpsertColumn("email", String.class, UserInfo::getEmail),
+        new UpsertColumn("phone", String.class, UserInfo::getPhone),
+        new UpsertColumn("address_line_1", String.class, UserInfo::getAddressLine1),
+        new UpsertColumn("address_line_2", String.class, UserInfo::getAddressLine2),
+        new UpsertColumn("city", String.class, UserInfo::getCity),
+        new UpsertColumn("country", String.class, UserInfo::getCountry),
+        new UpsertColumn("created_at", LocalDateTime.class, userInfo -> toLocalDateTime(userInfo.getCreatedAt())),
+        new UpsertColumn("updated_at", LocalDateTime.class, userInfo -> toLocalDateTime(userInfo.getUpdatedAt()))
+    );
+
+    /**
+     * Columns which are not overwritten when the row already exists.
+     */
+    private static final Set<String> upsertKeptColumns = Set.of("user_id", "created_at");
+
+    /**
+     * Properties which can be used for keyset pagination: they are not nullable, and backed by an index.
+     */
+    private static final Map<String, KeysetColumn> keysetColumns = Map.of(
+        "id",
+        new KeysetColumn("id", userInfo -> userInfo.getId().toString(), Long::valueOf),
+        "firstname",
+        new KeysetColumn("firstname", UserInfo::getFirstname, value -> value),
+        "lastname",
+        new KeysetColumn("lastname", UserInfo::getLastname, value -> value),
+        "userId",
+        new KeysetColumn("user_id", UserInfo::getUserId, value -> value),
+        "email",
+        new KeysetColumn("email", UserInfo::getEmail, value -> value),
+        "createdAt",
+        new KeysetColumn(
+            "created_at",
+            userInfo -> userInfo.getCreatedAt().toString(),
+            value -> LocalDateTime.ofInstant(Instant.parse(value), ZoneOffset.UTC)
+        )
+    );
+
     public UserInfoRepositoryInternalImpl(
         R2dbcEntityTemplate template,
         EntityManager entityManager,
@@ -60,12 +143,78 @@ class UserInfoRepositoryInternalImpl extends SimpleR2dbcRepository<UserInfo, Lon
         return createQuery(pageable, null).all();
     }
 
+    @Override
+    public Flux<UserInfo> findAllBy(Pageable pageable, KeysetCursor after) {
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        KeysetColumn keysetColumn = keysetColumns.get(order.getProperty());
+        if (keysetColumn == null) {
+            return Flux.error(new IllegalArgumentException("Keyset pagination is not supported on " + order.getProperty()));
+        }
+        if (after != null && !after.getOrder().equals(order)) {
+            return Flux.error(new IllegalArgumentException("The cursor does not match the requested sort order"));
+        }
+        // the id is the tiebreaker, so that the (sort column, id) pair is unique
+        Sort sort = Sort.by(order);
+        if (!"id".equals(order.getProperty())) {
+            sort = sort.and(Sort.by(order.getDirection(), "id"));
+        }
+        Pageable seekPageable = PageRequest.of(0, pageable.getPageSize(), sort);
+        if (after == null) {
+            return createQuery(seekPageable, null).all();
+        }
+
+        Condition whereClause = createSeekCondition(keysetColumn, order.getDirection());
+        DatabaseClient.GenericExecuteSpec spec = db.sql(createSelect(seekPageable, whereClause)).bind(KEYSET_ID_MARKER, after.getId());
+        if (!"id".equals(order.getProperty())) {
+            try {
+                spec = spec.bind(KEYSET_VALUE_MARKER, keysetColumn.parser.apply(after.getValue()));
+            } catch (RuntimeException e) {
+                return Flux.error(new IllegalArgumentException("Malformed cursor", e));
+            }
+        }
+        return spec.map(this::process).all();
+    }
+
+    @Override
+    public KeysetCursor keysetCursorOf(UserInfo userInfo, Sort.Order order) {
+        KeysetColumn keysetColumn = keysetColumns.get(order.getProperty());
+        if (keysetColumn == null) {
+            throw new IllegalArgumentException("Keyset pagination is not supported on " + order.getProperty());
+        }
+        return new KeysetCursor(order.getProperty(), order.getDirection(), userInfo.getId(), keysetColumn.formatter.apply(userInfo));
+    }
+
+    /**
+     * Build the seek predicate {@code col >= :value AND (col > :value OR id > :id)} (mirrored for descending
+     * order), whose first term keeps the predicate sargable on the index of the sort column.
+     */
+    private static Condition createSeekCondition(KeysetColumn keysetColumn, Sort.Direction direction) {
+        Column idColumn = entityTable.column("id");
+        Expression idMarker = Conditions.just(":" + KEYSET_ID_MARKER);
+        boolean ascending = direction.isAscending();
+        if ("id".equals(keysetColumn.columnName)) {
+            return ascending ? Conditions.isGreater(idColumn, idMarker) : Conditions.isLess(idColumn, idMarker);
+        }
+        Column sortColumn = entityTable.column(keysetColumn.columnName);
+        Expression valueMarker = Conditions.just(":" + KEYSET_VALUE_MARKER);
+        Condition range = ascending
+            ? Conditions.isGreaterOrEqualTo(sortColumn, valueMarker)
+            : Conditions.isLessOrEqualTo(sortColumn, valueMarker);
+        Condition after = ascending
+            ? Conditions.isGreater(sortColumn, valueMarker).or(Conditions.isGreater(idColumn, idMarker))
+            : Conditions.isLess(sortColumn, valueMarker).or(Conditions.isLess(idColumn, idMarker));
+        return range.and(Conditions.nest(after));
+    }
+
     RowsFetchSpec<UserInfo> createQuery(Pageable pageable, Condition whereClause) {
+        return db.sql(createSelect(pageable, whereClause)).map(this::process);
+    }
+
+    private String createSelect(Pageable pageable, Condition whereClause) {
         List<Expression> columns = UserInfoSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
         SelectFromAndJoin selectFrom = Select.builder().select(columns).from(entityTable);
         // we do not support Criteria here for now as of https://github.com/jhipster/generator-jhipster/issues/18269
-        String select = entityManager.createSelect(selectFrom, UserInfo.class, pageable, whereClause);
-        return db.sql(select).map(this::process);
+        return entityManager.createSelect(selectFrom, UserInfo.class, pageable, whereClause);
     }
 
     @Override
@@ -73,6 +222,269 @@ class UserInfoRepositoryInternalImpl extends SimpleR2dbcRepository<UserInfo, Lon
         return findAllBy(null);
     }
 
+    @Override
+    public Mono<Long> estimateCount() {
+        return db
+            .sql(
+                "SELECT COALESCE(table_rows, 0) AS estimate FROM information_schema.tables " +
+                "WHERE table_schema = DATABASE() AND table_name = 'user_info'"
+            )
+            .map(row -> row.get("estimate", Long.class))
+            .one();
+    }
+
+    @Override
+    public Flux<UserInfo> findAllByIds(Collection<Long> ids) {
+        Condition whereClause = Conditions.in(entityTable.column("id"), Conditions.just(":" + IDS_MARKER));
+        String select = createSelect(null, whereClause);
+        // one IN (...) query per batch, the batches being queried one after the other
+        return Flux.fromIterable(ids)
+            .distinct()
+            .buffer(IDS_BATCH_SIZE)
+            .concatMap(batch -> db.sql(select).bind(IDS_MARKER, batch).map(this::process).all());
+    }
+
+    @Override
+    public Mono<UserInfo> findOneByUserId(String userId) {
+        Comparison whereClause = Conditions.isEqual(entityTable.column("user_id"), Conditions.just(":" + USER_ID_MARKER));
+        return db.sql(createSelect(null, whereClause)).bind(USER_ID_MARKER, userId).map(this::process).one();
+    }
+
+    @Override
+    public Flux<UserInfo> findAllByEmail(String email) {
+        Comparison whereClause = Conditions.isEqual(entityTable.column("email"), Conditions.just(":" + EMAIL_MARKER));
+        Pageable byId = PageRequest.of(0, EMAIL_MATCHES_LIMIT, Sort.by("id"));
+        return db.sql(createSelect(byId, whereClause)).bind(EMAIL_MARKER, email).map(this::process).all();
+    }
+
+    @Override
+    public Mono<Boolean> updateNonNullFields(UserInfo userInfo) {
+        Map<String, Object> assignments = new LinkedHashMap<>();
+        putIfNotNull(assignments, "userId", userInfo.getUserId());
+        putIfNotNull(assignments, "firstname", userInfo.getFirstname());
+        putIfNotNull(assignments, "lastname", userInfo.getLastname());
+        putIfNotNull(assignments, "alias", userInfo.getAlias());
+        putIfNotNull(assignments, "gender", userInfo.getGender());
+        putIfNotNull(assignments, "email", userInfo.getEmail());
+        putIfNotNull(assignments, "phone", userInfo.getPhone());
+        putIfNotNull(assignments, "addressLine1", userInfo.getAddressLine1());
+        putIfNotNull(assignments, "addressLine2", userInfo.getAddressLine2());
+        putIfNotNull(assignments, "city", userInfo.getCity());
+        putIfNotNull(assignments, "country", userInfo.getCountry());
+        putIfNotNull(assignments, "createdAt", userInfo.getCreatedAt());
+        putIfNotNull(assignments, "updatedAt", userInfo.getUpdatedAt());
+        if (assignments.isEmpty()) {
+            return existsById(userInfo.getId());
+        }
+
+        Update update = Update.from(
+            assignments.entrySet().stream().collect(Collectors.toMap(e -> SqlIdentifier.unquoted(e.getKey()), Map.Entry::getValue))
+        );
+        return r2dbcEntityTemplate
+            .update(Query.query(Criteria.where("id").is(userInfo.getId())), update, UserInfo.class)
+            // depending on the driver flags, MySQL may report changed rows instead of matched rows,
+            // in which case a no-op update of an existing row reports 0
+            .flatMap(rows -> rows > 0 ? Mono.just(true) : existsById(userInfo.getId()));
+    }
+
+    @Override
+    public Mono<List<Long>> updateNonNullFieldsAll(List<UserInfo> userInfos) {
+        if (userInfos.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        List<Long> ids = userInfos.stream().map(UserInfo::getId).toList();
+        return db
+            .sql("SELECT id FROM user_info WHERE id IN (:ids) FOR UPDATE")
+            .bind("ids", ids)
+            .map(row -> row.get("id", Long.class))
+            .all()
+            .collect(Collectors.toSet())
+            .flatMap(found -> {
+                List<UserInfo> existing = userInfos.stream().filter(userInfo -> found.contains(userInfo.getId())).toList();
+                List<Long> existingIds = existing.stream().map(UserInfo::getId).toList();
+                List<String> assignments = new ArrayList<>();
+                // only the markers used by the statement can be bound: rows without any value have no branch
+                Map<String, Object> values = new LinkedHashMap<>();
+                Set<Long> updatedIds = new LinkedHashSet<>();
+                for (UpsertColumn column : upsertColumns) {
+                    StringBuilder cases = new StringBuilder();
+                    for (int row = 0; row < existing.size(); row++) {
+                        Object value = column.extractor.apply(existing.get(row));
+                        if (value != null) {
+                            cases.append(" WHEN :id_").append(row).append(" THEN :").append(upsertMarker(row, column));
+                            values.put("id_" + row, existing.get(row).getId());
+                            values.put(upsertMarker(row, column), value);
+                            updatedIds.add(existing.get(row).getId());
+                        }
+                    }
+                    if (!cases.isEmpty()) {
+                        assignments.add(column.columnName + " = CASE id" + cases + " ELSE " + column.columnName + " END");
+                    }
+                }
+                if (assignments.isEmpty()) {
+                    return Mono.just(existingIds);
+                }
+                DatabaseClient.GenericExecuteSpec spec = db
+                    .sql("UPDATE user_info SET " + String.join(", ", assignments) + " WHERE id IN (:ids)")
+                    .bind("ids", updatedIds);
+                for (Map.Entry<String, Object> value : values.entrySet()) {
+                    spec = spec.bind(value.getKey(), value.getValue());
+                }
+                return spec.then().thenReturn(existingIds);
+            });
+    }
+
+    @Override
+    public Mono<Boolean> deleteExistingById(Long id) {
+        return r2dbcEntityTemplate.delete(Query.query(Criteria.where("id").is(id)), UserInfo.class).map(rows -> rows > 0);
+    }
+
+    @Override
+    public Mono<Map<String, Long>> findIdsByUserIds(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return db
+            .sql("SELECT id, user_id FROM user_info WHERE user_id IN (:userIds)")
+            .bind("userIds", userIds)
+            .map(row -> Map.entry(row.get("user_id", String.class), row.get("id", Long.class)))
+            .all()
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    @Override
+    public Flux<IdRangeChecksum> checksumIdRanges(long from, long to, long interval) {
+        return db
+            .sql(
+                "SELECT id DIV :interval * :interval AS range_from, COUNT(*) AS row_count, " +
+                "CAST(SUM(MOD(id * :multiplier + " +
+                UPDATED_AT_SECONDS +
+                ", :modulus)) AS SIGNED) AS checksum " +
+                "FROM user_info WHERE id >= :from AND id < :to GROUP BY range_from"
+            )
+            .bind("interval", interval)
+            .bind("multiplier", IdRangeChecksum.ID_MULTIPLIER)
+            .bind("modulus", IdRangeChecksum.MODULUS)
+            .bind("from", from)
+            .bind("to", to)
+            .map(row -> new IdRangeChecksum(row.get("range_from", Long.class), row.get("row_count", Long.class), row.get("checksum", Long.class)))
+            .all();
+    }
+
+    @Override
+    public Mono<Map<Long, Long>> findUpdatedAtSecondsByIdRange(long from, long to) {
+        return db
+            .sql("SELECT id, " + UPDATED_AT_SECONDS + " AS updated_at_seconds FROM user_info WHERE id >= :from AND id < :to")
+            .bind("from", from)
+            .bind("to", to)
+            .map(row -> Map.entry(row.get("id", Long.class), row.get("updated_at_seconds", Long.class)))
+            .all()
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    @Override
+    public Mono<Void> upsertAllByUserId(List<UserInfo> userInfos) {
+        if (userInfos.isEmpty()) {
+            return Mono.empty();
+        }
+        String columnNames = upsertColumns.stream().map(column -> column.columnName).collect(Collectors.joining(", "));
+        String values = IntStream.range(0, userInfos.size())
+            .mapToObj(row ->
+                upsertColumns
+                    .stream()
+                    .map(column -> ":" + upsertMarker(row, column))
+                    .collect(Collectors.joining(", ", "(", ")"))
+            )
+            .collect(Collectors.joining(", "));
+        String assignments = upsertColumns
+            .stream()
+            .map(column -> column.columnName)
+            .filter(columnName -> !upsertKeptColumns.contains(columnName))
+            .map(columnName -> columnName + " = new." + columnName)
+            .collect(Collectors.joining(", "));
+        DatabaseClient.GenericExecuteSpec spec = db.sql(
+            "INSERT INTO user_info (" + columnNames + ") VALUES " + values + " AS new ON DUPLICATE KEY UPDATE " + assignments
+        );
+        for (int row = 0; row < userInfos.size(); row++) {
+            UserInfo userInfo = userInfos.get(row);
+            for (UpsertColumn column : upsertColumns) {
+                Object value = column.extractor.apply(userInfo);
+                spec = value == null ? spec.bindNull(upsertMarker(row, column), column.type) : spec.bind(upsertMarker(row, column), value);
+            }
+        }
+        return spec.then();
+    }
+
+    @Override
+    public Flux<UserInfo> searchFullText(String booleanModeQuery, Pageable pageable) {
+        List<Expression> columns = UserInfoSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        String select = entityManager.createSelect(
+            Select.builder().select(columns).from(entityTable),
+            UserInfo.class,
+            null,
+            Conditions.just(FULL_TEXT_MATCH)
+        );
+        return db
+            .sql(select + " ORDER BY " + FULL_TEXT_MATCH + " DESC, " + EntityManager.ENTITY_ALIAS + ".id LIMIT :limit OFFSET :offset")
+            .bind(FULL_TEXT_MARKER, booleanModeQuery)
+            .bind("limit", pageable.getPageSize())
+            .bind("offset", pageable.getOffset())
+            .map(this::process)
+            .all();
+    }
+
+    @Override
+    public Mono<Long> countFullText(String booleanModeQuery, long limit) {
+        return db
+            .sql("SELECT COUNT(*) AS match_count FROM (SELECT id FROM user_info WHERE " + FULL_TEXT_MATCH + " LIMIT :limit) matches")
+            .bind(FULL_TEXT_MARKER, booleanModeQuery)
+            .bind("limit", limit)
+            .map(row -> row.get("match_count", Long.class))
+            .one();
+    }
+
+    @Override
+    public Flux<UserInfo> findAllNotMatchingFullText(String booleanModeQuery, Pageable pageable) {
+        List<Expression> columns = UserInfoSqlHelper.getColumns(entityTable, EntityManager.ENTITY_ALIAS);
+        String select = entityManager.createSelect(
+            Select.builder().select(columns).from(entityTable),
+            UserInfo.class,
+            null,
+            Conditions.just("NOT " + FULL_TEXT_MATCH)
+        );
+        return db
+            .sql(select + " ORDER BY " + EntityManager.ENTITY_ALIAS + ".id LIMIT :limit OFFSET :offset")
+            .bind(FULL_TEXT_MARKER, booleanModeQuery)
+            .bind("limit", pageable.getPageSize())
+            .bind("offset", pageable.getOffset())
+            .map(this::process)
+            .all();
+    }
+
+    @Override
+    public Mono<Long> countNotMatchingFullText(String booleanModeQuery, long limit) {
+        return db
+            .sql("SELECT COUNT(*) AS row_count FROM (SELECT id FROM user_info WHERE NOT " + FULL_TEXT_MATCH + " LIMIT :limit) rows_left")
+            .bind(FULL_TEXT_MARKER, booleanModeQuery)
+            .bind("limit", limit)
+            .map(row -> row.get("row_count", Long.class))
+            .one();
+    }
+
+    private static String upsertMarker(int row, UpsertColumn column) {
+        return column.columnName + "_" + row;
+    }
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return instant == null ? null : LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static void putIfNotNull(Map<String, Object> assignments, String property, Object value) {
+        if (value != null) {
+            assignments.put(property, value);
+        }
+    }
+
     @Override
     public Mono<UserInfo> findById(Long id) {
         Comparison whereClause = Conditions.isEqual(entityTable.column("id"), Conditions.just(id.toString()));
@@ -88,4 +500,30 @@ class UserInfoRepositoryInternalImpl extends SimpleR2dbcRepository<UserInfo, Lon
     public <S extends UserInfo> Mono<S> save(S entity) {
         return super.save(entity);
     }
+
+    private static final class UpsertColumn {
+
+        private final String columnName;
+        private final Class<?> type;
+        private final Function<UserInfo, Object> extractor;
+
+        private UpsertColumn(String columnName, Class<?> type, Function<UserInfo, Object> extractor) {
+            this.columnName = columnName;
+            this.type = type;
+            this.extractor = extractor;
+        }
+    }
+
+    private static final class KeysetColumn {
+
+        private final String columnName;
+        private final Function<UserInfo, String> formatter;
+        private final Function<String, Object> parser;
+
+        private KeysetColumn(String columnName, Function<UserInfo, String> formatter, Function<String, Object> parser) {
+            this.columnName = columnName;
+            this.formatter = formatter;
+            this.parser = parser;
+        }
+    }
 }
@@ -0,0 +1,197 @@
+package com.dnc.mprs.userservice.repository.search;
+
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Estimates the cost of a {@code query_string} query before it is sent to Elasticsearch, and rejects or rewrites the
+ * constructs which can pin the search threads for seconds.
+ * <p>
+ * Each clause adds to the cost score according to the work it makes Elasticsearch do: a term is the cheapest, then
+ * phrases, ranges, fuzzy terms, prefixes and wildcards, which are expanded against the terms dictionary. Regular
+ * expressions and leading wildcards, which scan the whole terms dictionary, are rejected, as are queries with too many
+ * clauses or a cost over the limit. Fuzzy terms are rewritten to the maximum number of edits allowed.
+ * <p>
+ * This is a lightweight scan of the query syntax, not a full parser: it errs on the side of counting a construct,
+ * and Elasticsearch still validates the query.
+ */
+public final class QueryStringAnalyzer {
+
+    static final int TERM_COST = 1;
+
+    static final int PHRASE_COST = 2;
+
+    static final int RANGE_COST = 3;
+
+    static final int FUZZY_COST = 5;
+
+    static final int PREFIX_COST = 5;
+
+    static final int WILDCARD_COST = 10;
+
+    private static final Set<String> OPERATORS = Set.of("AND", "OR", "NOT", "&&", "||", "!");
+
+    private static final Pattern FUZZY_SUFFIX = Pattern.compile("~(\\d*)$");
+
+    private static final Pattern BOOST_SUFFIX = Pattern.compile("\\^[\\d.]*$");
+
+    private static final Pattern SLOP_SUFFIX = Pattern.compile("^~\\d*");
+
+    private final int maxCost;
+
+    private final int maxClauses;
+
+    private final int maxFuzzyEdits;
+
+    public QueryStringAnalyzer(int maxCost, int maxClauses, int maxFuzzyEdits) {
+        this.maxCost = maxCost;
+        this.maxClauses = maxClauses;
+        this.maxFuzzyEdits = maxFuzzyEdits;
+    }
+
+    /**
+     * Analyze a query.
+     *
+     * @param query the {@code query_string} query.
+     * @return the cost of the query, and the query to run, which may be rewritten.
+     * @throws QueryTooExpensiveException if the query is rejected.
+     */
+    public QueryStringCost analyze(String query) {
+        if (query == null) {
+            return new QueryStringCost("", 0, 0);
+        }
+        StringBuilder rewritten = new StringBuilder(query.length());
+        int cost = 0;
+        int clauses = 0;
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                rewritten.append(c);
+                i++;
+            } else if (c == '"' || c == '[' || c == '{') {
+                int end = c == '"' ? closing(query, i + 1, "\"") : closing(query, i + 1, "]}");
+                Matcher slop = SLOP_SUFFIX.matcher(query.substring(end));
+                if (c == '"' && slop.find()) {
+                    end += slop.end();
+                    cost += PHRASE_COST + (slop.group().length() > 1 ? Integer.parseInt(slop.group().substring(1)) : 0);
+                } else {
+                    cost += c == '"' ? PHRASE_COST : RANGE_COST;
+                }
+                clauses++;
+                rewritten.append(query, i, end);
+                i = end;
+            } else {
+                int start = i;
+                while (i < query.length() && !isTokenEnd(query.charAt(i))) {
+                    i += query.charAt(i) == '\\' ? 2 : 1;
+                }
+                i = Math.min(i, query.length());
+                String token = query.substring(start, i);
+                if (OPERATORS.contains(token)) {
+                    rewritten.append(token);
+                    continue;
+                }
+                Term term = analyzeTerm(token);
+                cost += term.cost;
+                clauses += term.cost > 0 ? 1 : 0;
+                rewritten.append(term.rewritten);
+            }
+        }
+        if (clauses > maxClauses) {
+            throw new QueryTooExpensiveException("The query has " + clauses + " clauses, more than the " + maxClauses + " allowed");
+        }
+        if (cost > maxCost) {
+            throw new QueryTooExpensiveException("The query cost " + cost + " exceeds the " + maxCost + " allowed");
+        }
+        return new QueryStringCost(rewritten.toString(), cost, clauses);
+    }
+
+    private Term analyzeTerm(String token) {
+        // escaped characters are masked, so that they are not taken for operators; the mask has the token's length
+        String masked = mask(token);
+        int valueStart = 0;
+        while (valueStart < masked.length() && "+-!".indexOf(masked.charAt(valueStart)) >= 0) {
+            valueStart++;
+        }
+        int fieldSeparator = masked.indexOf(':', valueStart);
+        if (fieldSeparator >= 0) {
+            valueStart = fieldSeparator + 1;
+        }
+        String value = masked.substring(valueStart);
+        if (value.isEmpty()) {
+            // a field name, or a prefix, applied to the group, phrase or range which follows
+            return new Term(token, 0);
+        }
+        if (value.startsWith("/")) {
+            throw new QueryTooExpensiveException("Regular expressions are not allowed");
+        }
+        value = BOOST_SUFFIX.matcher(value).replaceFirst("");
+        Matcher fuzzy = FUZZY_SUFFIX.matcher(value);
+        if (fuzzy.find()) {
+            // without a number, the default fuzziness allows two edits
+            int edits = fuzzy.group(1).isEmpty() ? 2 : Integer.parseInt(fuzzy.group(1));
+            String rewritten = token;
+            if (edits > maxFuzzyEdits) {
+                int suffixStart = valueStart + fuzzy.start();
+                int suffixEnd = valueStart + fuzzy.end();
+                rewritten = token.substring(0, suffixStart) + "~" + maxFuzzyEdits + token.substring(suffixEnd);
+            }
+            return new Term(rewritten, FUZZY_COST);
+        }
+        if ("*".equals(value)) {
+            // match all, or field exists
+            return new Term(token, TERM_COST);
+        }
+        boolean wildcard = value.indexOf('*') >= 0 || value.indexOf('?') >= 0;
+        if (!wildcard) {
+            return new Term(token, TERM_COST);
+        }
+        if (value.charAt(0) == '*' || value.charAt(0) == '?') {
+            throw new QueryTooExpensiveException("Leading wildcards are not allowed");
+        }
+        boolean prefix = value.indexOf('*') == value.length() - 1 && value.indexOf('?') < 0;
+        return new Term(token, prefix ? PREFIX_COST : WILDCARD_COST);
+    }
+
+    private static boolean isTokenEnd(char c) {
+        return Character.isWhitespace(c) || c == '(' || c == ')' || c == '"' || c == '[' || c == '{';
+    }
+
+    private static int closing(String query, int from, String closingChars) {
+        for (int i = from; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (closingChars.indexOf(c) >= 0) {
+                return i + 1;
+            }
+        }
+        return query.length();
+    }
+
+    private static String mask(String token) {
+        StringBuilder masked = new StringBuilder(token.length());
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) == '\\' && i + 1 < token.length()) {
+                masked.append("xx");
+                i++;
+            } else {
+                masked.append(token.charAt(i));
+            }
+        }
+        return masked.toString();
+    }
+
+    private static final class Term {
+
+        private final String rewritten;
+        private final int cost;
+
+        private Term(String rewritten, int cost) {
+            this.rewritten = rewritten;
+            this.cost = cost;
+        }
+    }
+}
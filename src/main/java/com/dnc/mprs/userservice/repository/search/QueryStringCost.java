@@ -0,0 +1,45 @@
+package com.dnc.mprs.userservice.repository.search;
+
+/**
+ * Result of the analysis of a {@code query_string} query by the {@link QueryStringAnalyzer}.
+ */
+public final class QueryStringCost {
+
+    private final String query;
+
+    private final int score;
+
+    private final int clauses;
+
+    public QueryStringCost(String query, int score, int clauses) {
+        this.query = query;
+        this.score = score;
+        this.clauses = clauses;
+    }
+
+    /**
+     * @return the query to run, with the expensive constructs rewritten.
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return the cost score of the query.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return the number of clauses of the query.
+     */
+    public int getClauses() {
+        return clauses;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryStringCost{query='" + query + "', score=" + score + ", clauses=" + clauses + "}";
+    }
+}
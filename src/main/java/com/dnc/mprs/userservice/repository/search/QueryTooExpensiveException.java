@@ -0,0 +1,13 @@
+package com.dnc.mprs.userservice.repository.search;
+
+/**
+ * Thrown when a search query is rejected by the {@link QueryStringAnalyzer}.
+ */
+public class QueryTooExpensiveException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public QueryTooExpensiveException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,96 @@
+package com.dnc.mprs.userservice.repository.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Position of the last hit of a {@code search_after} page: the point in time the search runs against, and the
+ * sort values of the last hit, its score and its id, used as a tiebreaker.
+ * <p>
+ * A cursor is exchanged with clients as an opaque, URL safe token, see {@link #encode()} and {@link #decode(String)}.
+ */
+public final class SearchCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final String pointInTimeId;
+
+    private final double score;
+
+    private final long id;
+
+    public SearchCursor(String pointInTimeId, double score, long id) {
+        this.pointInTimeId = Objects.requireNonNull(pointInTimeId, "pointInTimeId is null");
+        this.score = score;
+        this.id = id;
+    }
+
+    /**
+     * Create a cursor from the sort values of a hit, sorted by score then id.
+     *
+     * @param pointInTimeId the point in time id.
+     * @param sortValues the sort values of the hit.
+     * @return the cursor.
+     */
+    public static SearchCursor of(String pointInTimeId, List<Object> sortValues) {
+        if (sortValues.size() != 2) {
+            throw new IllegalArgumentException("Unexpected sort values " + sortValues);
+        }
+        return new SearchCursor(
+            pointInTimeId,
+            Double.parseDouble(String.valueOf(sortValues.get(0))),
+            Long.parseLong(String.valueOf(sortValues.get(1)))
+        );
+    }
+
+    public String getPointInTimeId() {
+        return pointInTimeId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return the {@code search_after} values of this cursor.
+     */
+    public List<Object> getSearchAfter() {
+        return List.of(score, id);
+    }
+
+    /**
+     * @return the opaque token representation of this cursor.
+     */
+    public String encode() {
+        String raw = score + SEPARATOR + id + SEPARATOR + pointInTimeId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token created by {@link #encode()}.
+     *
+     * @param token the opaque token.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static SearchCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        // the point in time id is last, so it may itself contain the separator
+        String[] parts = raw.split(SEPARATOR, 3);
+        if (parts.length != 3 || parts[2].isEmpty()) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new SearchCursor(parts[2], Double.parseDouble(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCursor{pointInTimeId='" + pointInTimeId + "', score=" + score + ", id=" + id + "}";
+    }
+}
@@ -0,0 +1,109 @@
+package com.dnc.mprs.userservice.repository.search;
+
+import com.dnc.mprs.userservice.domain.enumeration.GenderType;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Structured search on {@link com.dnc.mprs.userservice.domain.UserInfo}s: typed filters, all optional, and an optional
+ * free-text query. Filters are matched without scoring, only the free-text query contributes to the relevance.
+ */
+public class UserInfoSearchFilter implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String query;
+
+    private GenderType gender;
+
+    private String country;
+
+    private String city;
+
+    private Instant createdFrom;
+
+    private Instant createdTo;
+
+    private Instant updatedFrom;
+
+    private Instant updatedTo;
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public GenderType getGender() {
+        return gender;
+    }
+
+    public void setGender(GenderType gender) {
+        this.gender = gender;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public Instant getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public void setCreatedFrom(Instant createdFrom) {
+        this.createdFrom = createdFrom;
+    }
+
+    public Instant getCreatedTo() {
+        return createdTo;
+    }
+
+    public void setCreatedTo(Instant createdTo) {
+        this.createdTo = createdTo;
+    }
+
+    public Instant getUpdatedFrom() {
+        return updatedFrom;
+    }
+
+    public void setUpdatedFrom(Instant updatedFrom) {
+        this.updatedFrom = updatedFrom;
+    }
+
+    public Instant getUpdatedTo() {
+        return updatedTo;
+    }
+
+    public void setUpdatedTo(Instant updatedTo) {
+        this.updatedTo = updatedTo;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserInfoSearchFilter{" +
+            "query='" + getQuery() + "'" +
+            ", gender=" + getGender() +
+            ", country='" + getCountry() + "'" +
+            ", city='" + getCity() + "'" +
+            ", createdFrom=" + getCreatedFrom() +
+            ", createdTo=" + getCreatedTo() +
+            ", updatedFrom=" + getUpdatedFrom() +
+            ", updatedTo=" + getUpdatedTo() +
+            "}";
+    }
+}
@@ -1,14 +1,51 @@
 package com.dnc.mprs.userservice.repository.search;
 
+import co.elastic.clients.elasticsearch._types.Script;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.MultiMatchQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.json.JsonData;
+import com.dnc.mprs.userservice.config.ApplicationProperties;
 import com.dnc.mprs.userservice.domain.UserInfo;
+import com.dnc.mprs.userservice.repository.IdRangeChecksum;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.SearchPage;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
 import org.springframework.data.elasticsearch.core.query.Query;
 import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Spring Data Elasticsearch repository for the {@link UserInfo} entity.
@@ -16,28 +53,383 @@ import reactor.core.publisher.Flux;
 public interface UserInfoSearchRepository extends ReactiveElasticsearchRepository<UserInfo, Long>, UserInfoSearchRepositoryInternal {}
 
 interface UserInfoSearchRepositoryInternal {
-    Flux<UserInfo> search(String query, Pageable pageable);
+    Mono<Page<UserInfo>> searchPage(String query, Pageable pageable);
+
+    QueryStringCost analyze(String query);
+
+    Mono<Page<UserInfo>> searchPage(UserInfoSearchFilter filter, Pageable pageable);
+
+    Mono<SearchHits<UserInfo>> searchAfter(String query, SearchCursor after, int size);
 
     Flux<UserInfo> search(Query query);
+
+    Mono<Set<Long>> bulkSync(Collection<UserInfo> toIndex, Collection<Long> toDelete, Collection<String> additionalAliasNames);
+
+    Mono<Set<Long>> bulkCreate(String indexName, Collection<UserInfo> toCreate);
+
+    Mono<Set<Long>> bulkDelete(String indexName, Collection<Long> toDelete);
+
+    Flux<UserInfo> suggest(String prefix, int size);
+
+    Flux<IdRangeChecksum> checksumIdRanges(long from, long to, long interval);
+
+    Mono<Map<Long, Long>> findUpdatedAtSecondsByIdRange(long from, long to);
 }
 
 class UserInfoSearchRepositoryInternalImpl implements UserInfoSearchRepositoryInternal {
 
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoSearchRepositoryInternalImpl.class);
+
+    private static final Duration POINT_IN_TIME_KEEP_ALIVE = Duration.ofMinutes(1);
+
+    private static final List<String> SUGGEST_FIELDS = List.of("firstname", "lastname", "alias");
+
+    private static final String SUGGEST_SUFFIX = ".suggest";
+
+    private static final String[] SUGGEST_SOURCE_INCLUDES = { "id", "firstname", "lastname", "alias" };
+
+    private static final String CHECKSUM_AGGREGATION = "ranges";
+
+    private static final String CHECKSUM_SUB_AGGREGATION = "checksum";
+
+    /**
+     * Contribution of a document to the {@link IdRangeChecksum} of its range, the same as in the database.
+     */
+    private static final String CHECKSUM_SCRIPT =
+        "long updated = 0;" +
+        "if (doc['updatedAt'].size() != 0) {" +
+        "  def value = doc['updatedAt'].value;" +
+        "  updated = value instanceof Number ? Math.floorDiv(value.longValue(), 1000L) : value.toEpochSecond();" +
+        "}" +
+        "return Math.floorMod(doc['id'].value * params.multiplier + updated, params.modulus);";
+
     private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
 
-    UserInfoSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate) {
+    private final ApplicationProperties.Search searchProperties;
+
+    private final QueryStringAnalyzer queryStringAnalyzer;
+
+    UserInfoSearchRepositoryInternalImpl(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate, ApplicationProperties applicationProperties) {
         this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.searchProperties = applicationProperties.getSearch();
+        this.queryStringAnalyzer = new QueryStringAnalyzer(
+            searchProperties.getMaxQueryCost(),
+            searchProperties.getMaxQueryClauses(),
+            searchProperties.getMaxFuzzyEdits()
+        );
+    }
+
+    /**
+     * Search for a page of documents, and their accurate total count, with a single request.
+     * <p>
+     * The query is analyzed first: expensive queries are rejected with a {@link QueryTooExpensiveException}, and the
+     * hits of heavy ones are only counted up to a limit.
+     */
+    @Override
+    public Mono<Page<UserInfo>> searchPage(String query, Pageable pageable) {
+        return Mono.fromCallable(() -> queryStringAnalyzer.analyze(query)).flatMap(cost ->
+            searchPage(new NativeQuery(queryString(cost.getQuery())._toQuery()), pageable, cost.getScore())
+        );
     }
 
     @Override
-    public Flux<UserInfo> search(String query, Pageable pageable) {
-        NativeQuery nativeQuery = new NativeQuery(QueryStringQuery.of(qs -> qs.query(query))._toQuery());
+    public QueryStringCost analyze(String query) {
+        return queryStringAnalyzer.analyze(query);
+    }
+
+    /**
+     * Search for a page of documents matching the filter. Typed filters go to the filter context of a bool query,
+     * where they are not scored and can be cached, and the free-text query, if any, to its must clause.
+     */
+    @Override
+    public Mono<Page<UserInfo>> searchPage(UserInfoSearchFilter filter, Pageable pageable) {
+        QueryStringCost cost;
+        try {
+            cost = queryStringAnalyzer.analyze(filter.getQuery());
+        } catch (QueryTooExpensiveException e) {
+            return Mono.error(e);
+        }
+        BoolQuery.Builder bool = new BoolQuery.Builder();
+        if (StringUtils.hasText(filter.getQuery())) {
+            bool.must(queryString(cost.getQuery())._toQuery());
+        }
+        if (filter.getGender() != null) {
+            bool.filter(TermQuery.of(term -> term.field("gender").value(filter.getGender().name()))._toQuery());
+        }
+        // country and city match exactly, on their keyword subfields
+        if (StringUtils.hasText(filter.getCountry())) {
+            bool.filter(TermQuery.of(term -> term.field("country.keyword").value(filter.getCountry()))._toQuery());
+        }
+        if (StringUtils.hasText(filter.getCity())) {
+            bool.filter(TermQuery.of(term -> term.field("city.keyword").value(filter.getCity()))._toQuery());
+        }
+        addRangeFilter(bool, "createdAt", filter.getCreatedFrom(), filter.getCreatedTo());
+        addRangeFilter(bool, "updatedAt", filter.getUpdatedFrom(), filter.getUpdatedTo());
+        return searchPage(new NativeQuery(bool.build()._toQuery()), pageable, cost.getScore());
+    }
+
+    private static QueryStringQuery queryString(String query) {
+        return QueryStringQuery.of(qs -> qs.query(query));
+    }
+
+    private static void addRangeFilter(BoolQuery.Builder bool, String field, Instant from, Instant to) {
+        if (from == null && to == null) {
+            return;
+        }
+        bool.filter(
+            RangeQuery.of(range -> {
+                range.field(field);
+                if (from != null) {
+                    range.gte(JsonData.of(from.toString()));
+                }
+                if (to != null) {
+                    range.lt(JsonData.of(to.toString()));
+                }
+                return range;
+            })._toQuery()
+        );
+    }
+
+    private Mono<Page<UserInfo>> searchPage(NativeQuery nativeQuery, Pageable pageable, int cost) {
         nativeQuery.setPageable(pageable);
-        return search(nativeQuery);
+        nativeQuery.setTimeout(Duration.ofMillis(searchProperties.getTimeoutMillis()));
+        if (cost > searchProperties.getHeavyQueryCost()) {
+            // shards stop counting hits past the limit, the total is then a lower bound
+            nativeQuery.setTrackTotalHitsUpTo(searchProperties.getHeavyQueryTrackTotalHitsUpTo());
+        } else {
+            nativeQuery.setTrackTotalHits(true);
+        }
+        return reactiveElasticsearchTemplate
+            .searchForPage(nativeQuery, UserInfo.class)
+            .map(searchPage ->
+                new PageImpl<>(
+                    searchPage.getSearchHits().getSearchHits().stream().map(SearchHit::getContent).toList(),
+                    pageable,
+                    searchPage.getSearchHits().getTotalHits()
+                )
+            );
+    }
+
+    /**
+     * Search for the hits following the cursor, sorted by score then id, against the point in time of the cursor.
+     * A point in time is opened for the first page.
+     * <p>
+     * The point in time is kept open for the next page, and closed once fewer hits than requested are found, as
+     * there is no next page then, or if the search fails or is cancelled, so that it does not outlive the search
+     * until its keep-alive expires.
+     */
+    @Override
+    public Mono<SearchHits<UserInfo>> searchAfter(String query, SearchCursor after, int size) {
+        QueryStringCost cost;
+        try {
+            cost = queryStringAnalyzer.analyze(query);
+        } catch (QueryTooExpensiveException e) {
+            return Mono.error(e);
+        }
+        Mono<String> pointInTimeId = after != null
+            ? Mono.just(after.getPointInTimeId())
+            : reactiveElasticsearchTemplate.openPointInTime(
+                reactiveElasticsearchTemplate.getIndexCoordinatesFor(UserInfo.class),
+                POINT_IN_TIME_KEEP_ALIVE,
+                false
+            );
+        // the point in time id may change from one request to the next: the one returned is closed after the last page
+        AtomicReference<String> lastPagePointInTimeId = new AtomicReference<>();
+        return Mono.usingWhen(
+            pointInTimeId,
+            pitId -> searchAfter(cost, after, size, pitId).doOnNext(hits -> {
+                if (hits.getSearchHits().size() < size) {
+                    lastPagePointInTimeId.set(hits.getPointInTimeId() != null ? hits.getPointInTimeId() : pitId);
+                }
+            }),
+            pitId -> lastPagePointInTimeId.get() != null ? closePointInTime(lastPagePointInTimeId.get()) : Mono.empty(),
+            (pitId, e) -> closePointInTime(pitId),
+            this::closePointInTime
+        );
+    }
+
+    private Mono<SearchHits<UserInfo>> searchAfter(QueryStringCost cost, SearchCursor after, int size, String pitId) {
+        NativeQueryBuilder builder = new NativeQueryBuilder()
+            .withQuery(queryString(cost.getQuery())._toQuery())
+            .withTimeout(Duration.ofMillis(searchProperties.getTimeoutMillis()))
+            .withSort(sort -> sort.score(score -> score.order(SortOrder.Desc)))
+            .withSort(sort -> sort.field(field -> field.field("id").order(SortOrder.Asc)))
+            .withPointInTime(new Query.PointInTime(pitId, POINT_IN_TIME_KEEP_ALIVE))
+            .withPageable(PageRequest.of(0, size))
+            .withTrackTotalHits(false);
+        if (after != null) {
+            builder.withSearchAfter(after.getSearchAfter());
+        }
+        return reactiveElasticsearchTemplate.searchForPage(builder.build(), UserInfo.class).map(SearchPage::getSearchHits);
+    }
+
+    private Mono<Void> closePointInTime(String pointInTimeId) {
+        return reactiveElasticsearchTemplate
+            .closePointInTime(pointInTimeId)
+            .then()
+            .onErrorResume(e -> {
+                LOG.debug("Could not close the point in time of the search", e);
+                return Mono.empty();
+            });
     }
 
     @Override
     public Flux<UserInfo> search(Query query) {
         return reactiveElasticsearchTemplate.search(query, UserInfo.class).map(SearchHit::getContent);
     }
+
+    /**
+     * Search for the documents whose firstname, lastname or alias starts with the prefix, using the
+     * {@code search_as_you_type} subfields and their shingles. Only the suggested fields are fetched.
+     */
+    @Override
+    public Flux<UserInfo> suggest(String prefix, int size) {
+        List<String> fields = SUGGEST_FIELDS.stream()
+            .flatMap(field -> Stream.of(field + SUGGEST_SUFFIX, field + SUGGEST_SUFFIX + "._2gram", field + SUGGEST_SUFFIX + "._3gram"))
+            .toList();
+        NativeQuery nativeQuery = new NativeQueryBuilder()
+            .withQuery(MultiMatchQuery.of(mm -> mm.query(prefix).type(TextQueryType.BoolPrefix).fields(fields))._toQuery())
+            .withSourceFilter(new FetchSourceFilterBuilder().withIncludes(SUGGEST_SOURCE_INCLUDES).build())
+            .withPageable(PageRequest.of(0, size))
+            .withTrackTotalHits(false)
+            .build();
+        return search(nativeQuery);
+    }
+
+    /**
+     * Compute the {@link IdRangeChecksum}s of the documents with an id in {@code [from, to)}, with a histogram
+     * aggregation on the id: a single request for all the ranges.
+     */
+    @Override
+    public Flux<IdRangeChecksum> checksumIdRanges(long from, long to, long interval) {
+        Script script = Script.of(sc ->
+            sc.inline(inline ->
+                inline
+                    .source(CHECKSUM_SCRIPT)
+                    .params("multiplier", JsonData.of(IdRangeChecksum.ID_MULTIPLIER))
+                    .params("modulus", JsonData.of(IdRangeChecksum.MODULUS))
+            )
+        );
+        NativeQuery nativeQuery = idRangeQuery(from, to)
+            .withAggregation(
+                CHECKSUM_AGGREGATION,
+                Aggregation.of(aggregation ->
+                    aggregation
+                        .histogram(histogram -> histogram.field("id").interval((double) interval).minDocCount(1))
+                        .aggregations(CHECKSUM_SUB_AGGREGATION, sub -> sub.sum(sum -> sum.script(script)))
+                )
+            )
+            .withMaxResults(0)
+            .withTrackTotalHits(false)
+            .build();
+        return reactiveElasticsearchTemplate
+            .aggregate(nativeQuery, UserInfo.class)
+            .cast(ElasticsearchAggregation.class)
+            .filter(container -> CHECKSUM_AGGREGATION.equals(container.aggregation().getName()))
+            .flatMapIterable(container -> container.aggregation().getAggregate().histogram().buckets().array())
+            .map(bucket ->
+                new IdRangeChecksum(
+                    (long) bucket.key(),
+                    bucket.docCount(),
+                    (long) bucket.aggregations().get(CHECKSUM_SUB_AGGREGATION).sum().value()
+                )
+            );
+    }
+
+    @Override
+    public Mono<Map<Long, Long>> findUpdatedAtSecondsByIdRange(long from, long to) {
+        NativeQuery nativeQuery = idRangeQuery(from, to)
+            .withSourceFilter(new FetchSourceFilterBuilder().withIncludes("id", "updatedAt").build())
+            .withPageable(PageRequest.of(0, (int) Math.min(to - from, Integer.MAX_VALUE)))
+            .withTrackTotalHits(false)
+            .build();
+        return search(nativeQuery).collectMap(
+            UserInfo::getId,
+            userInfo -> userInfo.getUpdatedAt() == null ? 0L : userInfo.getUpdatedAt().getEpochSecond()
+        );
+    }
+
+    private static NativeQueryBuilder idRangeQuery(long from, long to) {
+        return new NativeQueryBuilder().withQuery(RangeQuery.of(range -> range.field("id").gte(JsonData.of(from)).lt(JsonData.of(to)))._toQuery());
+    }
+
+    /**
+     * Index and delete documents with a single {@code _bulk} request, on the UserInfo index and on the write indices
+     * of the additional aliases, like the alias of an index being rebuilt. The additional aliases are required to
+     * exist: a write racing with the removal of one fails, rather than creating an index with its name.
+     *
+     * @return the ids of the documents whose operation failed on any of the indices.
+     */
+    @Override
+    public Mono<Set<Long>> bulkSync(Collection<UserInfo> toIndex, Collection<Long> toDelete, Collection<String> additionalAliasNames) {
+        if (toIndex.isEmpty() && toDelete.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        String aliasName = reactiveElasticsearchTemplate.getIndexCoordinatesFor(UserInfo.class).getIndexName();
+        List<String> indexNames = Stream.concat(Stream.of(aliasName), additionalAliasNames.stream()).toList();
+        BulkRequest.Builder request = new BulkRequest.Builder();
+        for (UserInfo userInfo : toIndex) {
+            Document document = reactiveElasticsearchTemplate.getElasticsearchConverter().mapObject(userInfo);
+            for (String indexName : indexNames) {
+                request.operations(op ->
+                    op.index(index ->
+                        index
+                            .index(indexName)
+                            .id(String.valueOf(userInfo.getId()))
+                            .document(document)
+                            .requireAlias(indexName.equals(aliasName) ? null : true)
+                    )
+                );
+            }
+        }
+        for (Long id : toDelete) {
+            for (String indexName : indexNames) {
+                request.operations(op -> op.delete(delete -> delete.index(indexName).id(String.valueOf(id))));
+            }
+        }
+        return bulk(request.build(), item -> item.error() != null);
+    }
+
+    /**
+     * Create documents in the given index with a single {@code _bulk} request. Documents which already exist are left
+     * untouched: they were written by a concurrent sync, which is more recent.
+     *
+     * @return the ids of the documents whose creation failed.
+     */
+    @Override
+    public Mono<Set<Long>> bulkCreate(String indexName, Collection<UserInfo> toCreate) {
+        if (toCreate.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        BulkRequest.Builder request = new BulkRequest.Builder();
+        for (UserInfo userInfo : toCreate) {
+            Document document = reactiveElasticsearchTemplate.getElasticsearchConverter().mapObject(userInfo);
+            request.operations(op -> op.create(create -> create.index(indexName).id(String.valueOf(userInfo.getId())).document(document)));
+        }
+        return bulk(request.build(), item -> item.error() != null && item.status() != HttpStatus.CONFLICT.value());
+    }
+
+    /**
+     * Delete documents from the given index with a single {@code _bulk} request. Documents which do not exist are
+     * ignored.
+     *
+     * @return the ids of the documents whose deletion failed.
+     */
+    @Override
+    public Mono<Set<Long>> bulkDelete(String indexName, Collection<Long> toDelete) {
+        if (toDelete.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        BulkRequest.Builder request = new BulkRequest.Builder();
+        for (Long id : toDelete) {
+            request.operations(op -> op.delete(delete -> delete.index(indexName).id(String.valueOf(id))));
+        }
+        return bulk(request.build(), item -> item.error() != null);
+    }
+
+    private Mono<Set<Long>> bulk(BulkRequest bulkRequest, Predicate<BulkResponseItem> failed) {
+        return Mono.from(reactiveElasticsearchTemplate.execute(client -> client.bulk(bulkRequest))).map(response ->
+            response.items().stream().filter(failed).map(item -> Long.valueOf(item.id())).collect(Collectors.toSet())
+        );
+    }
 }
@@ -0,0 +1,64 @@
+package com.dnc.mprs.userservice.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compares the mapping of a live search index with the expected mapping.
+ * <p>
+ * Every field of the expected mapping, including the multi-fields, has to exist in the live mapping, with the same
+ * value for every parameter set in the expected mapping. Parameters left to their default, and fields only in the
+ * live mapping, are not checked.
+ */
+final class SearchIndexMappingValidator {
+
+    private static final String PROPERTIES = "properties";
+
+    private static final String FIELDS = "fields";
+
+    private SearchIndexMappingValidator() {}
+
+    /**
+     * @param expected the expected mapping, with its {@code properties}.
+     * @param actual the live mapping.
+     * @return the differences, empty if the live mapping matches.
+     */
+    static List<String> validate(Map<String, Object> expected, Map<String, Object> actual) {
+        List<String> differences = new ArrayList<>();
+        compare("", expected, actual, differences);
+        return differences;
+    }
+
+    private static void compare(String path, Map<String, Object> expected, Map<String, Object> actual, List<String> differences) {
+        for (Map.Entry<String, Object> parameter : expected.entrySet()) {
+            String name = parameter.getKey();
+            Object actualValue = actual.get(name);
+            if (PROPERTIES.equals(name) || FIELDS.equals(name)) {
+                String separator = PROPERTIES.equals(name) && path.isEmpty() ? "" : ".";
+                compareFields(path + separator, asMap(parameter.getValue()), asMap(actualValue), differences);
+            } else if (!Objects.equals(String.valueOf(parameter.getValue()), String.valueOf(actualValue))) {
+                differences.add(
+                    (path.isEmpty() ? "" : path + " ") + name + ": expected " + parameter.getValue() + " but was " + actualValue
+                );
+            }
+        }
+    }
+
+    private static void compareFields(String prefix, Map<String, Object> expected, Map<String, Object> actual, List<String> differences) {
+        for (Map.Entry<String, Object> field : expected.entrySet()) {
+            String path = prefix + field.getKey();
+            if (!actual.containsKey(field.getKey())) {
+                differences.add(path + " is missing");
+            } else {
+                compare(path, asMap(field.getValue()), asMap(actual.get(field.getKey())), differences);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Map.of();
+    }
+}
@@ -0,0 +1,202 @@
+package com.dnc.mprs.userservice.service;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import com.dnc.mprs.userservice.domain.UserInfo;
+import com.dnc.mprs.userservice.repository.UserInfoRepository;
+import com.dnc.mprs.userservice.repository.search.UserInfoSearchRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+/**
+ * Micro-batching indexer, which refreshes the search index documents of changed UserInfos with {@code _bulk} requests.
+ * <p>
+ * Refresh requests wait in a bounded queue for up to the linger time, or until a batch is full. Requests for the
+ * same id within a batch are coalesced: the row is read once, and indexed (or deleted, if it does not exist anymore)
+ * with a single bulk operation, on the current index and on the index being rebuilt, if any. The batch size adapts to the
+ * bulk latency: it doubles while bulk requests are faster than the target latency, and halves when they are slower.
+ * <p>
+ * When the queue is full, submissions are retried with a backoff, which slows the producers down to the pace of
+ * the search index.
+ */
+@Service
+public class UserInfoBulkIndexer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoBulkIndexer.class);
+
+    private static final int SUBMIT_MAX_RETRIES = 10;
+
+    private final UserInfoRepository userInfoRepository;
+
+    private final UserInfoSearchRepository userInfoSearchRepository;
+
+    private final UserInfoSearchIndexManager userInfoSearchIndexManager;
+
+    private final UserInfoQueryCache userInfoQueryCache;
+
+    private final ApplicationProperties.Indexing.Bulk properties;
+
+    private final BlockingQueue<RefreshRequest> queue;
+
+    private final AtomicInteger batchSize;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Timer bulkLatencyTimer;
+
+    private Disposable subscription;
+
+    public UserInfoBulkIndexer(
+        UserInfoRepository userInfoRepository,
+        UserInfoSearchRepository userInfoSearchRepository,
+        UserInfoSearchIndexManager userInfoSearchIndexManager,
+        UserInfoQueryCache userInfoQueryCache,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.userInfoRepository = userInfoRepository;
+        this.userInfoSearchRepository = userInfoSearchRepository;
+        this.userInfoSearchIndexManager = userInfoSearchIndexManager;
+        this.userInfoQueryCache = userInfoQueryCache;
+        this.properties = applicationProperties.getIndexing().getBulk();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.batchSize = new AtomicInteger(properties.getMinBatchSize());
+        Gauge.builder("userinfo.index.bulk.queue", queue, BlockingQueue::size)
+            .description("Refresh requests waiting to be sent to the search index")
+            .register(meterRegistry);
+        Gauge.builder("userinfo.index.bulk.batch.target", batchSize, AtomicInteger::get)
+            .description("Current maximum number of refresh requests per bulk request")
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("userinfo.index.bulk.batch.size")
+            .description("Number of documents per bulk request")
+            .register(meterRegistry);
+        this.bulkLatencyTimer = Timer.builder("userinfo.index.bulk.latency")
+            .description("Latency of the bulk requests, including the database read")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LOG.debug("Starting the UserInfo bulk indexer, with a queue of {} requests", properties.getQueueCapacity());
+        subscription = Mono.defer(this::cycle).repeat().subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Request the refresh of the search index document of a UserInfo.
+     *
+     * @param userInfoId the id of the UserInfo.
+     * @return a {@link Mono} emitting {@code true} once the document is refreshed, or {@code false} if it failed.
+     */
+    public Mono<Boolean> submit(Long userInfoId) {
+        RefreshRequest request = new RefreshRequest(userInfoId);
+        return Mono.defer(() -> queue.offer(request) ? request.result.asMono() : Mono.error(new RejectedExecutionException("queue full")))
+            .retryWhen(
+                Retry.backoff(SUBMIT_MAX_RETRIES, Duration.ofMillis(properties.getLingerMillis())).filter(
+                    RejectedExecutionException.class::isInstance
+                )
+            )
+            .onErrorResume(e -> {
+                LOG.warn("Could not queue the refresh of UserInfo {}", userInfoId, e);
+                return Mono.just(false);
+            });
+    }
+
+    private Mono<Void> cycle() {
+        // wait for the batch to fill up, unless enough requests are already waiting
+        Mono<Long> linger = queue.size() >= batchSize.get() ? Mono.just(0L) : Mono.delay(Duration.ofMillis(properties.getLingerMillis()));
+        return linger.then(Mono.defer(this::flush));
+    }
+
+    private Mono<Void> flush() {
+        int maxBatchSize = batchSize.get();
+        List<RefreshRequest> batch = new ArrayList<>(maxBatchSize);
+        queue.drainTo(batch, maxBatchSize);
+        if (batch.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<Long, List<RefreshRequest>> requestsById = batch
+            .stream()
+            .collect(Collectors.groupingBy(request -> request.userInfoId, LinkedHashMap::new, Collectors.toList()));
+        Timer.Sample sample = Timer.start();
+        return userInfoRepository
+            .findAllByIds(requestsById.keySet())
+            .collectMap(UserInfo::getId, Function.identity())
+            .zipWith(userInfoSearchIndexManager.findBuildingAliasNames())
+            .flatMap(lookup -> {
+                Map<Long, UserInfo> existing = lookup.getT1();
+                List<Long> deleted = requestsById.keySet().stream().filter(id -> !existing.containsKey(id)).toList();
+                return userInfoSearchRepository.bulkSync(existing.values(), deleted, lookup.getT2());
+            })
+            .doOnNext(failed -> {
+                // searches cached since the write may have read the documents before this refresh
+                userInfoQueryCache.invalidate();
+                long latency = sample.stop(bulkLatencyTimer);
+                batchSizeSummary.record(requestsById.size());
+                adaptBatchSize(Duration.ofNanos(latency), batch.size() == maxBatchSize);
+                if (!failed.isEmpty()) {
+                    LOG.warn("The refresh of {} UserInfo documents failed", failed.size());
+                }
+                requestsById.forEach((id, requests) -> complete(requests, !failed.contains(id)));
+            })
+            .onErrorResume(e -> {
+                LOG.warn("Bulk refresh of {} UserInfo documents failed", requestsById.size(), e);
+                batchSize.set(properties.getMinBatchSize());
+                requestsById.values().forEach(requests -> complete(requests, false));
+                return Mono.just(Set.of());
+            })
+            .then();
+    }
+
+    private void adaptBatchSize(Duration latency, boolean full) {
+        if (latency.toMillis() > properties.getTargetLatencyMillis()) {
+            batchSize.updateAndGet(size -> Math.max(properties.getMinBatchSize(), size / 2));
+        } else if (full) {
+            batchSize.updateAndGet(size -> Math.min(properties.getMaxBatchSize(), size * 2));
+        }
+    }
+
+    private static void complete(List<RefreshRequest> requests, boolean refreshed) {
+        requests.forEach(request -> request.result.tryEmitValue(refreshed));
+    }
+
+    private static final class RefreshRequest {
+
+        private final Long userInfoId;
+        private final Sinks.One<Boolean> result = Sinks.one();
+
+        private RefreshRequest(Long userInfoId) {
+            this.userInfoId = userInfoId;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.dnc.mprs.userservice.service;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import com.dnc.mprs.userservice.domain.UserInfo;
+import com.dnc.mprs.userservice.domain.enumeration.UserInfoChangeType;
+import com.dnc.mprs.userservice.repository.UserInfoChangeOutboxRepository;
+import com.dnc.mprs.userservice.repository.UserInfoRepository;
+import com.dnc.mprs.userservice.service.dto.UserInfoChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Drains the UserInfo change outbox into the compacted change topic, where the other services follow the changes of
+ * the UserInfos, or load all of them by reading the topic from the beginning.
+ * <p>
+ * Events are keyed by the id of the UserInfo, so that all the events of a UserInfo go to the same partition, in order.
+ * Each event carries the current row: the changes of a UserInfo drained together are published as a single event,
+ * and an event published again after a failure is never older than the previous one. The event of a deleted UserInfo
+ * is followed by a tombstone, so that compaction eventually removes the UserInfo from the topic.
+ * <p>
+ * A batch is first claimed, in a short {@code READ COMMITTED} transaction, so that no lock and no connection is held
+ * while the events are published. The entries of a UserInfo are not claimed while another instance holds a claim on
+ * its entries, so that the instances never reorder the events of a UserInfo. Published entries are then deleted, and
+ * the entries which failed are released for the next poll. The claim of an instance which stopped while publishing
+ * expires after the claim timeout, which must be longer than the publication of a batch.
+ */
+@Service
+public class UserInfoChangePublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoChangePublisher.class);
+
+    private final UserInfoChangeOutboxRepository userInfoChangeOutboxRepository;
+
+    private final UserInfoRepository userInfoRepository;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final ApplicationProperties.Broker.Changes properties;
+
+    private final Counter publishedCounter;
+
+    private final Counter failedCounter;
+
+    private Disposable subscription;
+
+    public UserInfoChangePublisher(
+        UserInfoChangeOutboxRepository userInfoChangeOutboxRepository,
+        UserInfoRepository userInfoRepository,
+        KafkaTemplate<String, String> kafkaTemplate,
+        ObjectMapper objectMapper,
+        ReactiveTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.userInfoChangeOutboxRepository = userInfoChangeOutboxRepository;
+        this.userInfoRepository = userInfoRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        DefaultTransactionDefinition transactionDefinition = new DefaultTransactionDefinition();
+        transactionDefinition.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.transactionalOperator = TransactionalOperator.create(transactionManager, transactionDefinition);
+        this.properties = applicationProperties.getBroker().getChanges();
+        this.publishedCounter = Counter.builder("userinfo.changes.published")
+            .description("UserInfo change events published to the change topic")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("userinfo.changes.failed")
+            .description("UserInfo change events whose publication failed, and which are retried")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LOG.debug(
+            "Starting the UserInfo change publisher to {}, polling every {}ms",
+            properties.getTopic(),
+            properties.getPollIntervalMillis()
+        );
+        subscription = Flux.interval(Duration.ofMillis(properties.getPollIntervalMillis()))
+            .onBackpressureDrop()
+            .concatMap(tick -> drain().onErrorResume(e -> {
+                LOG.warn("Failed to drain the UserInfo change outbox", e);
+                return Mono.empty();
+            }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Publish the pending changes, batch after batch, until fewer entries than the batch size are published.
+     *
+     * @return a {@link Mono} completing once the outbox is drained.
+     */
+    public Mono<Void> drain() {
+        return drainBatch().expand(published -> published == properties.getBatchSize() ? drainBatch() : Mono.empty()).then();
+    }
+
+    /**
+     * Record a change of every UserInfo, so that the change topic gets the current state of all of them; this
+     * fills the topic with the UserInfos which existed before their changes were published.
+     *
+     * @return the number of UserInfos to publish.
+     */
+    public Mono<Long> enqueueSnapshot() {
+        if (!properties.isEnabled()) {
+            return Mono.just(0L);
+        }
+        return userInfoChangeOutboxRepository
+            .enqueueAllUserInfos()
+            .doOnNext(count -> LOG.info("Publishing a snapshot of {} UserInfos", count));
+    }
+
+    /**
+     * @return the number of changes not published yet.
+     */
+    public Mono<Long> countPending() {
+        return userInfoChangeOutboxRepository.count();
+    }
+
+    private Mono<Integer> drainBatch() {
+        Instant now = Instant.now();
+        return userInfoChangeOutboxRepository
+            .claimOldest(now, now.plusMillis(properties.getClaimTimeoutMillis()), properties.getBatchSize())
+            .as(transactionalOperator::transactional)
+            .flatMap(entries -> {
+                if (entries.isEmpty()) {
+                    return Mono.just(0);
+                }
+                // the changes of a UserInfo are published once, in the order of their first change
+                Map<Long, List<UserInfoChangeOutboxRepository.Entry>> entriesByUserInfoId = entries
+                    .stream()
+                    .collect(
+                        Collectors.groupingBy(UserInfoChangeOutboxRepository.Entry::getUserInfoId, LinkedHashMap::new, Collectors.toList())
+                    );
+                return userInfoRepository
+                    .findAllByIds(entriesByUserInfoId.keySet())
+                    .collectMap(UserInfo::getId, Function.identity())
+                    .map(rows -> entriesByUserInfoId.entrySet().stream().map(e -> records(e.getKey(), e.getValue(), rows)).toList())
+                    .flatMap(this::send)
+                    .flatMap(published -> {
+                        Set<Long> publishedUserInfoIds = Set.copyOf(published);
+                        Map<Boolean, List<Long>> idsByPublished = entries
+                            .stream()
+                            .collect(
+                                Collectors.partitioningBy(
+                                    entry -> publishedUserInfoIds.contains(entry.getUserInfoId()),
+                                    Collectors.mapping(UserInfoChangeOutboxRepository.Entry::getId, Collectors.toList())
+                                )
+                            );
+                        // failed changes are released, and published again by the next poll
+                        return userInfoChangeOutboxRepository
+                            .deleteAllById(idsByPublished.get(true))
+                            .then(userInfoChangeOutboxRepository.releaseAllById(idsByPublished.get(false)))
+                            .thenReturn(idsByPublished.get(true).size());
+                    })
+                    .onErrorResume(e ->
+                        userInfoChangeOutboxRepository
+                            .releaseAllById(entries.stream().map(UserInfoChangeOutboxRepository.Entry::getId).toList())
+                            .then(Mono.error(e))
+                    );
+            });
+    }
+
+    /**
+     * The records of the changes of a UserInfo: its current state, or a deletion event and a tombstone.
+     */
+    private UserInfoRecords records(Long userInfoId, List<UserInfoChangeOutboxRepository.Entry> entries, Map<Long, UserInfo> rows) {
+        String key = String.valueOf(userInfoId);
+        UserInfo userInfo = rows.get(userInfoId);
+        List<ProducerRecord<String, String>> records = new ArrayList<>(2);
+        if (userInfo == null) {
+            UserInfoChangeEvent deleted = new UserInfoChangeEvent(UserInfoChangeType.DELETED, userInfoId, null);
+            records.add(new ProducerRecord<>(properties.getTopic(), key, toJson(deleted)));
+            records.add(new ProducerRecord<>(properties.getTopic(), key, null));
+        } else {
+            // a UserInfo created and updated since the last drain is published once, as created
+            UserInfoChangeType type = entries.get(0).getChangeType() == UserInfoChangeType.CREATED
+                ? UserInfoChangeType.CREATED
+                : UserInfoChangeType.UPDATED;
+            records.add(new ProducerRecord<>(properties.getTopic(), key, toJson(new UserInfoChangeEvent(type, userInfoId, userInfo))));
+        }
+        return new UserInfoRecords(userInfoId, records);
+    }
+
+    /**
+     * Hand the records to the producer, and return the ids of the UserInfos whose records are all acknowledged.
+     */
+    private Mono<List<Long>> send(List<UserInfoRecords> batch) {
+        // the producer may block while it fetches the metadata of the topic, or while its buffer is full
+        return Mono.fromCallable(() ->
+            batch
+                .stream()
+                .map(userInfoRecords ->
+                    Mono.fromFuture(
+                        CompletableFuture.allOf(userInfoRecords.records.stream().map(this::sendRecord).toArray(CompletableFuture[]::new))
+                    )
+                        .doOnSuccess(acknowledged -> publishedCounter.increment(userInfoRecords.records.size()))
+                        .thenReturn(userInfoRecords.userInfoId)
+                        .onErrorResume(e -> {
+                            LOG.warn("Could not publish the change of the UserInfo {}, it is retried", userInfoRecords.userInfoId, e);
+                            failedCounter.increment(userInfoRecords.records.size());
+                            return Mono.empty();
+                        })
+                )
+                .toList()
+        )
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(acknowledgements -> Flux.concat(acknowledgements))
+            .collectList();
+    }
+
+    private CompletableFuture<?> sendRecord(ProducerRecord<String, String> record) {
+        return kafkaTemplate.send(record);
+    }
+
+    private String toJson(UserInfoChangeEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + event, e);
+        }
+    }
+
+    private static final class UserInfoRecords {
+
+        private final Long userInfoId;
+        private final List<ProducerRecord<String, String>> records;
+
+        private UserInfoRecords(Long userInfoId, List<ProducerRecord<String, String>> records) {
+            this.userInfoId = userInfoId;
+            this.records = records;
+        }
+    }
+}
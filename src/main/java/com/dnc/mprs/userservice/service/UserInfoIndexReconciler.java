@@ -0,0 +1,155 @@
+package com.dnc.mprs.userservice.service;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import com.dnc.mprs.userservice.repository.IdRangeChecksum;
+import com.dnc.mprs.userservice.repository.UserInfoIndexOutboxRepository;
+import com.dnc.mprs.userservice.repository.UserInfoRepository;
+import com.dnc.mprs.userservice.repository.search.UserInfoSearchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Periodically finds the UserInfo search index documents which drifted from the database, and repairs them.
+ * <p>
+ * The database and the index are compared with {@link IdRangeChecksum}s of {@code (id, updated_at)}: the first pass
+ * computes the checksums of all the id ranges with one query on each side. Only the ranges whose checksums differ
+ * are split into smaller ranges and compared again, down to the leaf size, where the rows are compared one by one.
+ * When the index is in sync, a full comparison costs two queries.
+ * <p>
+ * Drifted documents are repaired through the index outbox, like any other change.
+ */
+@Service
+public class UserInfoIndexReconciler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoIndexReconciler.class);
+
+    private static final int ENQUEUE_BATCH_SIZE = 500;
+
+    private final UserInfoRepository userInfoRepository;
+
+    private final UserInfoSearchRepository userInfoSearchRepository;
+
+    private final UserInfoIndexOutboxRepository userInfoIndexOutboxRepository;
+
+    private final ApplicationProperties.Indexing.Reconcile properties;
+
+    private final Counter driftedCounter;
+
+    private final Counter rangeQueriesCounter;
+
+    private Disposable subscription;
+
+    public UserInfoIndexReconciler(
+        UserInfoRepository userInfoRepository,
+        UserInfoSearchRepository userInfoSearchRepository,
+        UserInfoIndexOutboxRepository userInfoIndexOutboxRepository,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.userInfoRepository = userInfoRepository;
+        this.userInfoSearchRepository = userInfoSearchRepository;
+        this.userInfoIndexOutboxRepository = userInfoIndexOutboxRepository;
+        this.properties = applicationProperties.getIndexing().getReconcile();
+        this.driftedCounter = Counter.builder("userinfo.index.reconcile.drifted")
+            .description("Search index documents found out of sync with the database")
+            .register(meterRegistry);
+        this.rangeQueriesCounter = Counter.builder("userinfo.index.reconcile.queries")
+            .description("Id range comparisons run by the reconciler, each one querying the database and the search index")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LOG.debug("Starting the UserInfo index reconciler, running every {}s", properties.getIntervalSeconds());
+        subscription = Flux.interval(Duration.ofSeconds(properties.getInitialDelaySeconds()), Duration.ofSeconds(properties.getIntervalSeconds()))
+            .onBackpressureDrop()
+            .concatMap(tick -> reconcile().onErrorResume(e -> {
+                LOG.warn("Failed to reconcile the UserInfo search index", e);
+                return Mono.empty();
+            }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Compare the whole index with the database, and queue the refresh of the drifted documents.
+     *
+     * @return a {@link Mono} emitting the number of drifted documents.
+     */
+    public Mono<Long> reconcile() {
+        AtomicInteger queries = new AtomicInteger();
+        return driftedIds(0, Long.MAX_VALUE, properties.getRangeSize(), queries)
+            .buffer(ENQUEUE_BATCH_SIZE)
+            .concatMap(ids -> userInfoIndexOutboxRepository.enqueueAll(ids).thenReturn(ids.size()))
+            .reduce(0L, Long::sum)
+            .doOnNext(drifted -> {
+                driftedCounter.increment(drifted);
+                rangeQueriesCounter.increment(queries.get());
+                if (drifted > 0) {
+                    LOG.info("Found {} UserInfo search index documents out of sync, with {} range comparisons", drifted, queries.get());
+                } else {
+                    LOG.debug("The UserInfo search index is in sync, checked with {} range comparisons", queries.get());
+                }
+            });
+    }
+
+    /**
+     * Find the ids of the drifted documents in {@code [from, to)}, comparing the checksums of ranges of
+     * {@code interval} ids, then drilling down into the mismatching ones.
+     */
+    private Flux<Long> driftedIds(long from, long to, long interval, AtomicInteger queries) {
+        queries.incrementAndGet();
+        return Mono.zip(
+            userInfoRepository.checksumIdRanges(from, to, interval).collectMap(IdRangeChecksum::getFrom, Function.identity()),
+            userInfoSearchRepository.checksumIdRanges(from, to, interval).collectMap(IdRangeChecksum::getFrom, Function.identity())
+        ).flatMapMany(checksums ->
+            Flux.fromIterable(mismatches(checksums.getT1(), checksums.getT2())).concatMap(rangeFrom -> {
+                long rangeTo = rangeFrom > to - interval ? to : rangeFrom + interval;
+                if (interval <= properties.getLeafRangeSize()) {
+                    return driftedRows(rangeFrom, rangeTo, queries);
+                }
+                return driftedIds(rangeFrom, rangeTo, Math.max(interval / properties.getFanout(), properties.getLeafRangeSize()), queries);
+            })
+        );
+    }
+
+    private Flux<Long> driftedRows(long from, long to, AtomicInteger queries) {
+        queries.incrementAndGet();
+        return Mono.zip(
+            userInfoRepository.findUpdatedAtSecondsByIdRange(from, to),
+            userInfoSearchRepository.findUpdatedAtSecondsByIdRange(from, to)
+        ).flatMapIterable(versions -> mismatches(versions.getT1(), versions.getT2()));
+    }
+
+    private static <V> Set<Long> mismatches(Map<Long, V> database, Map<Long, V> index) {
+        Set<Long> keys = new TreeSet<>(database.keySet());
+        keys.addAll(index.keySet());
+        keys.removeIf(key -> Objects.equals(database.get(key), index.get(key)));
+        return keys;
+    }
+}
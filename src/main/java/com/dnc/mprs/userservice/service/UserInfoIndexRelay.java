@@ -0,0 +1,128 @@
+package com.dnc.mprs.userservice.service;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import com.dnc.mprs.userservice.repository.UserInfoIndexOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drains the UserInfo index outbox into Elasticsearch, through the {@link UserInfoBulkIndexer}.
+ * <p>
+ * Each entry only tells which UserInfo changed: the current row is read and indexed, or removed from the index
+ * if it does not exist anymore. Processing an entry is therefore idempotent, and the order in which entries
+ * are processed does not matter. Failed entries are retried with an exponential backoff.
+ */
+@Service
+public class UserInfoIndexRelay {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoIndexRelay.class);
+
+    private final UserInfoIndexOutboxRepository userInfoIndexOutboxRepository;
+
+    private final UserInfoBulkIndexer userInfoBulkIndexer;
+
+    private final ApplicationProperties.Indexing.Outbox properties;
+
+    private final Counter indexedCounter;
+
+    private final Counter failedCounter;
+
+    private Disposable subscription;
+
+    public UserInfoIndexRelay(
+        UserInfoIndexOutboxRepository userInfoIndexOutboxRepository,
+        UserInfoBulkIndexer userInfoBulkIndexer,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.userInfoIndexOutboxRepository = userInfoIndexOutboxRepository;
+        this.userInfoBulkIndexer = userInfoBulkIndexer;
+        this.properties = applicationProperties.getIndexing().getOutbox();
+        this.indexedCounter = Counter.builder("userinfo.index.outbox.processed")
+            .description("Index outbox entries applied to the search index")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("userinfo.index.outbox.failed")
+            .description("Index outbox entries whose processing failed, and which are retried")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        LOG.debug("Starting the UserInfo index outbox relay, polling every {}ms", properties.getPollIntervalMillis());
+        subscription = Flux.interval(Duration.ofMillis(properties.getPollIntervalMillis()))
+            .onBackpressureDrop()
+            .concatMap(tick -> drain().onErrorResume(e -> {
+                LOG.warn("Failed to drain the UserInfo index outbox", e);
+                return Mono.empty();
+            }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Process the due entries, batch after batch, until fewer entries than the batch size are due.
+     *
+     * @return a {@link Mono} completing once the outbox is drained.
+     */
+    public Mono<Void> drain() {
+        return drainBatch().expand(processed -> processed == properties.getBatchSize() ? drainBatch() : Mono.empty()).then();
+    }
+
+    private Mono<Integer> drainBatch() {
+        return userInfoIndexOutboxRepository
+            .findDue(Instant.now(), properties.getBatchSize())
+            .collectList()
+            .flatMap(entries -> {
+                if (entries.isEmpty()) {
+                    return Mono.just(0);
+                }
+                // several changes of the same row are applied with a single refresh; all the rows of the
+                // batch are submitted at once, so that the bulk indexer can group them
+                Map<Long, List<UserInfoIndexOutboxRepository.Entry>> entriesByUserInfoId = entries
+                    .stream()
+                    .collect(Collectors.groupingBy(UserInfoIndexOutboxRepository.Entry::getUserInfoId));
+                return Flux.fromIterable(entriesByUserInfoId.entrySet())
+                    .flatMap(
+                        e -> userInfoBulkIndexer.submit(e.getKey()).flatMap(done -> complete(e.getValue(), done)),
+                        Math.max(1, entriesByUserInfoId.size())
+                    )
+                    .then(Mono.just(entries.size()));
+            });
+    }
+
+    private Mono<Void> complete(List<UserInfoIndexOutboxRepository.Entry> entries, boolean done) {
+        if (done) {
+            indexedCounter.increment(entries.size());
+            return userInfoIndexOutboxRepository.deleteAllById(entries.stream().map(UserInfoIndexOutboxRepository.Entry::getId).toList());
+        }
+        failedCounter.increment(entries.size());
+        return Flux.fromIterable(entries)
+            .concatMap(entry -> userInfoIndexOutboxRepository.reschedule(entry.getId(), Instant.now().plus(backoff(entry.getAttempts()))))
+            .then();
+    }
+
+    private Duration backoff(int attempts) {
+        long delay = properties.getInitialBackoffMillis() << Math.min(attempts, 20);
+        return Duration.ofMillis(Math.min(delay, properties.getMaxBackoffMillis()));
+    }
+}
@@ -0,0 +1,139 @@
+package com.dnc.mprs.userservice.service;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Cache of UserInfo search and list results, keyed by the normalized query and the page.
+ * <p>
+ * Entries are not evicted on writes: keys include a write generation, bumped by every local change of the UserInfos
+ * and by every refresh of the search index, so that entries of previous generations are never read again, and age out
+ * of the cache. Bumping on index refreshes matters because the index is updated asynchronously: a search run between
+ * a write and the refresh of its document would otherwise cache a stale result under the new generation.
+ * <p>
+ * Failed and empty results are not cached.
+ * <p>
+ * Writes made by other instances are only seen once entries expire.
+ */
+@Component
+public class UserInfoQueryCache {
+
+    private final AsyncCache<Key, Object> resultCache;
+
+    private final boolean enabled;
+
+    private final AtomicLong writeGeneration = new AtomicLong();
+
+    public UserInfoQueryCache(AsyncCache<Key, Object> resultCache, ApplicationProperties applicationProperties) {
+        this.resultCache = resultCache;
+        this.enabled = applicationProperties.getCache().getQuery().isEnabled();
+    }
+
+    /**
+     * Get the cached result of a query, or load and cache it. Concurrent misses for the same key share a single load.
+     *
+     * @param kind the kind of query, like {@code search}.
+     * @param query the query, normalized before it is used as a key.
+     * @param pageable the page.
+     * @param loader loads the result on a miss.
+     * @return the result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(String kind, String query, Pageable pageable, Supplier<Mono<T>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(writeGeneration.get(), kind, normalize(query), pageable);
+        return Mono.fromFuture(() -> load(key, loader), true).map(result -> (T) result);
+    }
+
+    /**
+     * Share the load of a key with the concurrent misses. A load which fails or has no result is not cached, so that
+     * the next call loads again instead of getting the error, or nothing, until the entry expires.
+     */
+    private <T> CompletableFuture<Object> load(Key key, Supplier<Mono<T>> loader) {
+        CompletableFuture<Object> result = resultCache.get(key, (k, executor) -> loader.get().map(Object.class::cast).toFuture());
+        result.whenComplete((value, error) -> {
+            if (error != null || value == null) {
+                resultCache.asMap().remove(key, result);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Make all the cached results stale, after a change of the UserInfos.
+     */
+    public void invalidate() {
+        writeGeneration.incrementAndGet();
+    }
+
+    /**
+     * @return the current write generation.
+     */
+    public long getWriteGeneration() {
+        return writeGeneration.get();
+    }
+
+    static String normalize(String query) {
+        return query == null ? "" : query.strip().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Key of a cached result.
+     */
+    public static final class Key {
+
+        private final long generation;
+        private final String kind;
+        private final String query;
+        private final int page;
+        private final int size;
+        private final String sort;
+
+        Key(long generation, String kind, String query, Pageable pageable) {
+            this.generation = generation;
+            this.kind = kind;
+            this.query = query;
+            this.page = pageable.isPaged() ? pageable.getPageNumber() : -1;
+            this.size = pageable.isPaged() ? pageable.getPageSize() : -1;
+            this.sort = pageable.getSort().toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return (
+                generation == other.generation &&
+                page == other.page &&
+                size == other.size &&
+                kind.equals(other.kind) &&
+                query.equals(other.query) &&
+                sort.equals(other.sort)
+            );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(generation, kind, query, page, size, sort);
+        }
+
+        @Override
+        public String toString() {
+            return "Key{generation=" + generation + ", kind=" + kind + ", query='" + query + "', page=" + page + ", size=" + size + "}";
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.dnc.mprs.userservice.service;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import com.dnc.mprs.userservice.domain.UserInfo;
+import com.dnc.mprs.userservice.repository.UserInfoRepository;
+import com.dnc.mprs.userservice.repository.search.UserInfoSearchRepository;
+import com.dnc.mprs.userservice.service.dto.UserInfoReindexStatus;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Rebuilds the UserInfo search index from the database, without downtime.
+ * <p>
+ * The rows are streamed in keyset chunks into a new versioned index, with parallel {@code _bulk} requests and
+ * refresh disabled. Meanwhile, searches still go to the current index, and document updates are applied to both.
+ * Once loaded, the new index replaces the current one with an atomic alias swap, see
+ * {@link UserInfoSearchIndexManager}. A single rebuild runs at a time.
+ * <p>
+ * A rebuild which fails or is cancelled, like by the shutdown of the instance, deletes the index it was building.
+ * The index left behind by an instance which crashed is deleted with {@link #discard()}.
+ */
+@Service
+public class UserInfoReindexService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoReindexService.class);
+
+    private static final Duration DISCARD_TIMEOUT = Duration.ofSeconds(30);
+
+    private final UserInfoRepository userInfoRepository;
+
+    private final UserInfoSearchRepository userInfoSearchRepository;
+
+    private final UserInfoSearchIndexManager userInfoSearchIndexManager;
+
+    private final UserInfoQueryCache userInfoQueryCache;
+
+    private final ApplicationProperties.Indexing.Reindex properties;
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private volatile UserInfoReindexStatus.State state = UserInfoReindexStatus.State.IDLE;
+
+    private volatile String indexName;
+
+    private volatile Long total;
+
+    private volatile Instant startedAt;
+
+    private volatile Instant finishedAt;
+
+    private volatile String error;
+
+    private Disposable subscription;
+
+    public UserInfoReindexService(
+        UserInfoRepository userInfoRepository,
+        UserInfoSearchRepository userInfoSearchRepository,
+        UserInfoSearchIndexManager userInfoSearchIndexManager,
+        UserInfoQueryCache userInfoQueryCache,
+        ApplicationProperties applicationProperties
+    ) {
+        this.userInfoRepository = userInfoRepository;
+        this.userInfoSearchRepository = userInfoSearchRepository;
+        this.userInfoSearchIndexManager = userInfoSearchIndexManager;
+        this.userInfoQueryCache = userInfoQueryCache;
+        this.properties = applicationProperties.getIndexing().getReindex();
+    }
+
+    @PreDestroy
+    public void stop() {
+        cancel();
+    }
+
+    /**
+     * Cancel the running rebuild, if any, and wait for the index it was building to be deleted.
+     */
+    public synchronized void cancel() {
+        if (subscription != null && !subscription.isDisposed()) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * Cancel the running rebuild, if any, then delete the index being built, even if it was left behind by another
+     * instance: as long as it exists, the instances send it the document updates, and no rebuild can start.
+     *
+     * @return the names of the deleted indices.
+     */
+    public Mono<List<String>> discard() {
+        LOG.info("Discarding the UserInfo index being built");
+        // the cancellation waits for the deletion of the index of the running rebuild
+        return Mono.fromRunnable(this::cancel)
+            .subscribeOn(Schedulers.boundedElastic())
+            .then(Mono.defer(userInfoSearchIndexManager::discardBuilding));
+    }
+
+    /**
+     * Start rebuilding the index in the background, unless a rebuild is already running.
+     *
+     * @return the status of the rebuild.
+     */
+    public synchronized UserInfoReindexStatus start() {
+        if (state == UserInfoReindexStatus.State.RUNNING) {
+            return getStatus();
+        }
+        LOG.info("Starting the rebuild of the UserInfo search index");
+        state = UserInfoReindexStatus.State.RUNNING;
+        processed.set(0);
+        indexName = null;
+        total = null;
+        startedAt = Instant.now();
+        finishedAt = null;
+        error = null;
+        subscription = reindex()
+            .subscribe(
+                previousIndexNames -> finish(UserInfoReindexStatus.State.COMPLETED, null),
+                e -> {
+                    LOG.error("The rebuild of the UserInfo search index failed", e);
+                    finish(UserInfoReindexStatus.State.FAILED, e.getMessage());
+                }
+            );
+        return getStatus();
+    }
+
+    /**
+     * @return the progress of the running, or last, rebuild, with its throughput and estimated remaining time.
+     */
+    public UserInfoReindexStatus getStatus() {
+        UserInfoReindexStatus status = new UserInfoReindexStatus();
+        status.setState(state);
+        status.setIndexName(indexName);
+        status.setTotal(total);
+        status.setProcessed(processed.get());
+        status.setStartedAt(startedAt);
+        status.setFinishedAt(finishedAt);
+        status.setError(error);
+        if (startedAt != null) {
+            Duration elapsed = Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now());
+            double seconds = Math.max(elapsed.toMillis(), 1) / 1000d;
+            double documentsPerSecond = status.getProcessed() / seconds;
+            status.setDocumentsPerSecond(documentsPerSecond);
+            if (state == UserInfoReindexStatus.State.RUNNING && total != null && documentsPerSecond > 0) {
+                status.setEtaSeconds((long) Math.ceil(Math.max(total - status.getProcessed(), 0) / documentsPerSecond));
+            }
+        }
+        return status;
+    }
+
+    private Mono<List<String>> reindex() {
+        return userInfoSearchIndexManager
+            .createBuildingIndex()
+            .doOnNext(name -> indexName = name)
+            .flatMap(name ->
+                userInfoSearchIndexManager
+                    .awaitBuildingAliasSeen()
+                    .then(userInfoRepository.count())
+                    .doOnNext(count -> total = count)
+                    .then(load(name))
+                    .then(Mono.defer(() -> userInfoSearchIndexManager.promote(name, properties.isDeletePreviousIndex())))
+                    .doOnNext(previousIndexNames -> {
+                        LOG.info("UserInfo search index {} replaces {}", name, previousIndexNames);
+                        userInfoQueryCache.invalidate();
+                    })
+                    .onErrorResume(e -> discardQuietly(name).then(Mono.error(e)))
+                    .doOnCancel(() -> {
+                        LOG.info("The rebuild of the UserInfo search index {} is cancelled", name);
+                        // cancelled by the caller of cancel(), which waits for the deletion
+                        discardQuietly(name).block();
+                        finish(UserInfoReindexStatus.State.FAILED, "Cancelled");
+                    })
+            );
+    }
+
+    private Mono<Void> discardQuietly(String name) {
+        return userInfoSearchIndexManager
+            .discard(name)
+            .timeout(DISCARD_TIMEOUT)
+            .onErrorResume(e -> {
+                LOG.warn("Could not delete the UserInfo index {}", name, e);
+                return Mono.empty();
+            });
+    }
+
+    private Mono<Void> load(String name) {
+        int chunkSize = properties.getChunkSize();
+        Sort.Order order = Sort.Order.asc("id");
+        Pageable chunk = PageRequest.of(0, chunkSize, Sort.by(order));
+        return userInfoRepository
+            .findAllBy(chunk, null)
+            .collectList()
+            .expand(rows ->
+                rows.size() < chunkSize
+                    ? Mono.<List<UserInfo>>empty()
+                    : userInfoRepository.findAllBy(chunk, userInfoRepository.keysetCursorOf(rows.get(rows.size() - 1), order)).collectList()
+            )
+            .filter(rows -> !rows.isEmpty())
+            .flatMap(
+                rows ->
+                    userInfoSearchRepository
+                        .bulkCreate(name, rows)
+                        .flatMap(failed ->
+                            failed.isEmpty()
+                                ? removeDeleted(name, rows).thenReturn(rows.size())
+                                : Mono.error(new IllegalStateException("Could not index the UserInfos " + failed))
+                        ),
+                properties.getConcurrency()
+            )
+            .doOnNext(processed::addAndGet)
+            .then();
+    }
+
+    /**
+     * Delete the documents of the rows of a chunk which were deleted since it was read: the deletion sent to the index
+     * being built may have come before the document, which would stay otherwise. Rows deleted after this check have
+     * their deletion sent after the document.
+     */
+    private Mono<Void> removeDeleted(String name, List<UserInfo> rows) {
+        List<Long> ids = rows.stream().map(UserInfo::getId).toList();
+        return userInfoRepository
+            .findAllByIds(ids)
+            .map(UserInfo::getId)
+            .collect(Collectors.toSet())
+            .flatMap(existing ->
+                userInfoSearchRepository.bulkDelete(name, ids.stream().filter(id -> !existing.contains(id)).toList())
+            )
+            .flatMap(failed ->
+                failed.isEmpty() ? Mono.<Void>empty() : Mono.error(new IllegalStateException("Could not delete the UserInfos " + failed))
+            );
+    }
+
+    private synchronized void finish(UserInfoReindexStatus.State finalState, String finalError) {
+        finishedAt = Instant.now();
+        error = finalError;
+        state = finalState;
+    }
+}
@@ -0,0 +1,373 @@
+package com.dnc.mprs.userservice.service;
+
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import com.dnc.mprs.userservice.domain.UserInfo;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ReactiveIndexOperations;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Manages the UserInfo search index.
+ * <p>
+ * The mapping and the static settings of the index are defined in {@code config/elasticsearch}, and referenced by the
+ * {@link UserInfo} entity. At startup, they are installed as an index template matching the UserInfo indices, the
+ * mapping is put on the live index, so that new fields and multi-fields are added to it, and the configured replicas
+ * and refresh interval are applied. The live index is then validated against the expected mapping and settings.
+ * Differences which cannot be applied to an existing index, like a changed field type or number of shards, require
+ * a rebuild.
+ * <p>
+ * The index can be rebuilt into a new versioned index, {@code userinfo-<timestamp>}, which replaces the current one
+ * by moving the {@code userinfo} alias, see {@link UserInfoReindexService}. While an index is being built, it is the
+ * write index of the {@code userinfo-building} alias, through which every instance sends it the same document
+ * updates as the current one. The alias is the only record of the rebuild: an instance which did not start it finds
+ * it in Elasticsearch, and a second rebuild cannot start while it exists, as an alias has a single write index.
+ */
+@Service
+public class UserInfoSearchIndexManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoSearchIndexManager.class);
+
+    private static final DateTimeFormatter VERSION_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final int TEMPLATE_PRIORITY = 100;
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final String BUILDING_ALIAS_SUFFIX = "-building";
+
+    /**
+     * How long the instances keep the knowledge of whether an index is being built, before asking Elasticsearch again.
+     */
+    private static final Duration BUILDING_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+    private final ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    private final ApplicationProperties.Indexing.Index properties;
+
+    private final Mono<List<String>> buildingAliasNames;
+
+    public UserInfoSearchIndexManager(ReactiveElasticsearchTemplate reactiveElasticsearchTemplate, ApplicationProperties applicationProperties) {
+        this.reactiveElasticsearchTemplate = reactiveElasticsearchTemplate;
+        this.properties = applicationProperties.getIndexing().getIndex();
+        this.buildingAliasNames = Mono.defer(() -> {
+            String buildingAliasName = getBuildingAliasName();
+            return Mono.from(
+                reactiveElasticsearchTemplate.execute(client -> client.indices().existsAlias(exists -> exists.name(buildingAliasName)))
+            ).map(exists -> exists.value() ? List.of(buildingAliasName) : List.<String>of());
+        }).cache(names -> BUILDING_CHECK_INTERVAL, e -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Mono<List<String>> setup = putTemplate().then(updateMapping()).then(updateSettings()).then(validate());
+        if (properties.isFailOnInvalid()) {
+            List<String> differences = setup.block(STARTUP_TIMEOUT);
+            if (differences != null && !differences.isEmpty()) {
+                throw new IllegalStateException("The UserInfo search index does not match its definition: " + differences);
+            }
+            return;
+        }
+        setup.subscribe(
+            differences -> {
+                if (differences.isEmpty()) {
+                    LOG.debug("UserInfo search index matches its definition");
+                } else {
+                    LOG.error("The UserInfo search index does not match its definition, it has to be rebuilt: {}", differences);
+                }
+            },
+            e -> LOG.warn("Could not set the UserInfo search index up", e)
+        );
+    }
+
+    /**
+     * Install the index template, which applies the mapping and settings to any index created for the UserInfos.
+     */
+    public Mono<Void> putTemplate() {
+        String aliasName = getAliasName();
+        ReactiveIndexOperations indexOperations = reactiveElasticsearchTemplate.indexOps(UserInfo.class);
+        return Mono.zip(indexOperations.createSettings(), indexOperations.createMapping())
+            .flatMap(definition ->
+                Mono.from(
+                    reactiveElasticsearchTemplate.execute(client ->
+                        client
+                            .indices()
+                            .putIndexTemplate(put ->
+                                put
+                                    .name(aliasName)
+                                    .indexPatterns(aliasName, aliasName + "-*")
+                                    .priority(TEMPLATE_PRIORITY)
+                                    .template(template ->
+                                        template
+                                            .settings(settings ->
+                                                settings
+                                                    .withJson(new StringReader(definition.getT1().toJson()))
+                                                    .numberOfReplicas(String.valueOf(properties.getReplicas()))
+                                                    .refreshInterval(time -> time.time(properties.getRefreshInterval()))
+                                            )
+                                            .mappings(mapping -> mapping.withJson(new StringReader(definition.getT2().toJson())))
+                                    )
+                            )
+                    )
+                )
+            )
+            .then();
+    }
+
+    /**
+     * Put the mapping derived from the entity on the index, creating the index if it does not exist.
+     *
+     * @return {@code true} if the mapping was acknowledged.
+     */
+    public Mono<Boolean> updateMapping() {
+        ReactiveIndexOperations indexOperations = reactiveElasticsearchTemplate.indexOps(UserInfo.class);
+        return indexOperations
+            .exists()
+            .flatMap(exists -> exists ? Mono.just(true) : indexOperations.create())
+            .then(Mono.defer(indexOperations::putMapping));
+    }
+
+    /**
+     * Apply the configured replicas and refresh interval to the live index.
+     */
+    public Mono<Void> updateSettings() {
+        return putLiveSettings(getAliasName());
+    }
+
+    /**
+     * Compare the live index with the mapping and settings it should have.
+     *
+     * @return the differences, empty if the live index matches.
+     */
+    public Mono<List<String>> validate() {
+        String aliasName = getAliasName();
+        ReactiveIndexOperations indexOperations = reactiveElasticsearchTemplate.indexOps(UserInfo.class);
+        Mono<List<String>> mappingDifferences = Mono.zip(indexOperations.createMapping(), indexOperations.getMapping()).map(mappings ->
+            SearchIndexMappingValidator.validate(mappings.getT1(), mappings.getT2())
+        );
+        Mono<List<String>> settingsDifferences = Mono.zip(
+            indexOperations.createSettings(),
+            Mono.from(reactiveElasticsearchTemplate.execute(client -> client.indices().getSettings(get -> get.index(aliasName))))
+        ).map(settings -> {
+            IndexSettings expected = IndexSettings.of(builder -> builder.withJson(new StringReader(settings.getT1().toJson())));
+            List<String> differences = new ArrayList<>();
+            settings
+                .getT2()
+                .result()
+                .forEach((indexName, state) -> {
+                    IndexSettings actual = state.settings().index() != null ? state.settings().index() : state.settings();
+                    String expectedShards = (expected.index() != null ? expected.index() : expected).numberOfShards();
+                    compareSetting(indexName, "number_of_shards", expectedShards, actual.numberOfShards(), differences);
+                    compareSetting(indexName, "number_of_replicas", String.valueOf(properties.getReplicas()), actual.numberOfReplicas(), differences);
+                    compareSetting(
+                        indexName,
+                        "refresh_interval",
+                        properties.getRefreshInterval(),
+                        actual.refreshInterval() != null ? actual.refreshInterval().time() : null,
+                        differences
+                    );
+                });
+            return differences;
+        });
+        return Mono.zip(mappingDifferences, settingsDifferences).map(differences -> {
+            List<String> all = new ArrayList<>(differences.getT1());
+            all.addAll(differences.getT2());
+            return all;
+        });
+    }
+
+    /**
+     * @return the name the UserInfo index is searched and updated with, an alias once the index has been rebuilt.
+     */
+    public String getAliasName() {
+        return reactiveElasticsearchTemplate.getIndexCoordinatesFor(UserInfo.class).getIndexName();
+    }
+
+    /**
+     * @return the name of the alias of the index being built.
+     */
+    public String getBuildingAliasName() {
+        return getAliasName() + BUILDING_ALIAS_SUFFIX;
+    }
+
+    /**
+     * Find whether an index is being built, which must receive the document updates too. The answer of Elasticsearch
+     * is kept for {@link #BUILDING_CHECK_INTERVAL}.
+     *
+     * @return the name of the alias of the index being built, or an empty list.
+     */
+    public Mono<List<String>> findBuildingAliasNames() {
+        return buildingAliasNames;
+    }
+
+    /**
+     * Create a new versioned index with the entity mapping, tuned for bulk loading: no refresh and no replicas, as
+     * the write index of the building alias. From now on it receives the document updates, until it is either
+     * {@link #promote(String, boolean) promoted} or {@link #discard(String) discarded}. Fails if another index is
+     * being built. The instances may not send it the document updates before {@link #awaitBuildingAliasSeen()}.
+     *
+     * @return the name of the new index.
+     */
+    public Mono<String> createBuildingIndex() {
+        String indexName = getAliasName() + "-" + VERSION_FORMATTER.format(ZonedDateTime.now(ZoneOffset.UTC));
+        ReactiveIndexOperations indexOperations = reactiveElasticsearchTemplate.indexOps(UserInfo.class);
+        return Mono.zip(indexOperations.createSettings(), indexOperations.createMapping())
+            .flatMap(definition ->
+                Mono.from(
+                    reactiveElasticsearchTemplate.execute(client ->
+                        client
+                            .indices()
+                            .create(create ->
+                                create
+                                    .index(indexName)
+                                    .aliases(getBuildingAliasName(), alias -> alias.isWriteIndex(true))
+                                    .settings(settings ->
+                                        settings
+                                            .withJson(new StringReader(definition.getT1().toJson()))
+                                            .refreshInterval(time -> time.time("-1"))
+                                            .numberOfReplicas("0")
+                                    )
+                                    .mappings(mapping -> mapping.withJson(new StringReader(definition.getT2().toJson())))
+                            )
+                    )
+                )
+            )
+            .thenReturn(indexName);
+    }
+
+    /**
+     * Wait for every instance to see the building alias: the instances which checked before it existed check again
+     * within the interval. Rows loaded after are either read with the changes of the instances which did not see the
+     * alias yet, or changed later and sent to the index being built too.
+     *
+     * @return a {@link Mono} completing once the index being built receives all the document updates.
+     */
+    public Mono<Void> awaitBuildingAliasSeen() {
+        return Mono.delay(BUILDING_CHECK_INTERVAL.multipliedBy(2)).then();
+    }
+
+    /**
+     * Make a built index the UserInfo index: apply the configured refresh interval and replicas, refresh it, then
+     * move the alias to it, and remove its building alias, with a single atomic {@code _aliases} request. If the
+     * UserInfo index was not an alias yet, the concrete index is removed by the same request, as an alias cannot have
+     * the name of an index.
+     *
+     * @param indexName the name of the built index.
+     * @param deletePreviousIndices whether to delete the indices the alias pointed to.
+     * @return the names of the indices the alias pointed to.
+     */
+    public Mono<List<String>> promote(String indexName, boolean deletePreviousIndices) {
+        String aliasName = getAliasName();
+        String buildingAliasName = getBuildingAliasName();
+        Mono<Void> refresh = Mono.from(reactiveElasticsearchTemplate.execute(client -> client.indices().refresh(r -> r.index(indexName)))).then();
+        return putLiveSettings(indexName)
+            .then(refresh)
+            .then(findAliasedIndexNames(aliasName))
+            .flatMap(previousIndexNames ->
+                Mono.from(
+                    reactiveElasticsearchTemplate.execute(client ->
+                        client
+                            .indices()
+                            .exists(exists -> exists.index(aliasName))
+                            .flatMap(exists ->
+                                client
+                                    .indices()
+                                    .updateAliases(update -> {
+                                        if (previousIndexNames.isEmpty() && exists.value()) {
+                                            update.actions(action -> action.removeIndex(remove -> remove.index(aliasName)));
+                                        }
+                                        previousIndexNames.forEach(previous ->
+                                            update.actions(action -> action.remove(remove -> remove.index(previous).alias(aliasName)))
+                                        );
+                                        update.actions(action -> action.remove(remove -> remove.index(indexName).alias(buildingAliasName)));
+                                        return update.actions(action -> action.add(add -> add.index(indexName).alias(aliasName)));
+                                    })
+                            )
+                    )
+                ).thenReturn(previousIndexNames)
+            )
+            .flatMap(previousIndexNames ->
+                deletePreviousIndices
+                    ? Flux.fromIterable(previousIndexNames).concatMap(this::deleteIndex).then(Mono.just(previousIndexNames))
+                    : Mono.just(previousIndexNames)
+            );
+    }
+
+    /**
+     * Stop updating an index being built and delete it, with its building alias.
+     *
+     * @param indexName the name of the index.
+     */
+    public Mono<Void> discard(String indexName) {
+        return deleteIndex(indexName);
+    }
+
+    /**
+     * Delete the indices of the building alias, like the index left behind by a rebuild which did not finish.
+     *
+     * @return the names of the deleted indices.
+     */
+    public Mono<List<String>> discardBuilding() {
+        return findAliasedIndexNames(getBuildingAliasName()).flatMap(indexNames ->
+            Flux.fromIterable(indexNames).concatMap(this::deleteIndex).then(Mono.just(indexNames))
+        );
+    }
+
+    private Mono<Void> putLiveSettings(String indexName) {
+        return Mono.from(
+            reactiveElasticsearchTemplate.execute(client ->
+                client
+                    .indices()
+                    .putSettings(put ->
+                        put
+                            .index(indexName)
+                            .settings(settings ->
+                                settings
+                                    .refreshInterval(time -> time.time(properties.getRefreshInterval()))
+                                    .numberOfReplicas(String.valueOf(properties.getReplicas()))
+                            )
+                    )
+            )
+        ).then();
+    }
+
+    private Mono<List<String>> findAliasedIndexNames(String aliasName) {
+        return Mono.from(
+            reactiveElasticsearchTemplate.execute(client ->
+                client
+                    .indices()
+                    .existsAlias(exists -> exists.name(aliasName))
+                    .flatMap(exists ->
+                        exists.value()
+                            ? client.indices().getAlias(get -> get.name(aliasName)).map(response -> List.copyOf(response.result().keySet()))
+                            : Mono.just(List.<String>of())
+                    )
+            )
+        );
+    }
+
+    private Mono<Void> deleteIndex(String indexName) {
+        LOG.debug("Deleting the UserInfo index {}", indexName);
+        return Mono.from(reactiveElasticsearchTemplate.execute(client -> client.indices().delete(delete -> delete.index(indexName)))).then();
+    }
+
+    private static void compareSetting(String indexName, String name, String expected, String actual, List<String> differences) {
+        if (expected != null && !Objects.equals(expected, actual)) {
+            differences.add(indexName + " " + name + ": expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -1,15 +1,56 @@
 package com.dnc.mprs.userservice.service;
 
+import com.dnc.mprs.userservice.config.ApplicationProperties;
 import com.dnc.mprs.userservice.domain.UserInfo;
+import com.dnc.mprs.userservice.domain.enumeration.UserInfoChangeType;
+import com.dnc.mprs.userservice.repository.FullTextQuery;
+import com.dnc.mprs.userservice.repository.KeysetCursor;
+import com.dnc.mprs.userservice.repository.UserInfoChangeOutboxRepository;
+import com.dnc.mprs.userservice.repository.UserInfoIndexOutboxRepository;
 import com.dnc.mprs.userservice.repository.UserInfoRepository;
+import com.dnc.mprs.userservice.repository.search.QueryStringCost;
+import com.dnc.mprs.userservice.repository.search.QueryTooExpensiveException;
+import com.dnc.mprs.userservice.repository.search.SearchCursor;
+import com.dnc.mprs.userservice.repository.search.UserInfoSearchFilter;
 import com.dnc.mprs.userservice.repository.search.UserInfoSearchRepository;
+import com.dnc.mprs.userservice.service.dto.UserInfoBulkItemResult;
+import com.dnc.mprs.userservice.service.dto.UserInfoBulkItemResult.Status;
+import com.dnc.mprs.userservice.service.dto.UserInfoSuggestion;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 /**
  * Service Implementation for managing {@link com.dnc.mprs.userservice.domain.UserInfo}.
@@ -18,15 +59,88 @@ import reactor.core.publisher.Mono;
 @Transactional
 public class UserInfoService {
 
+    /**
+     * Name of the circuit breaker of the searches, which falls back to the database while Elasticsearch fails.
+     */
+    public static final String SEARCH_CIRCUIT_BREAKER = "userInfoSearch";
+
     private static final Logger LOG = LoggerFactory.getLogger(UserInfoService.class);
 
+    private static final String COUNT_CACHE_KEY = "all";
+
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+
+    private static final int BULK_BATCH_SIZE = 500;
+
     private final UserInfoRepository userInfoRepository;
 
     private final UserInfoSearchRepository userInfoSearchRepository;
 
-    public UserInfoService(UserInfoRepository userInfoRepository, UserInfoSearchRepository userInfoSearchRepository) {
+    private final UserInfoIndexOutboxRepository userInfoIndexOutboxRepository;
+
+    private final UserInfoChangeOutboxRepository userInfoChangeOutboxRepository;
+
+    private final boolean changesEnabled;
+
+    private final AsyncCache<Long, UserInfo> userInfoCache;
+
+    private final AsyncCache<String, Long> userInfoCountCache;
+
+    private final UserInfoQueryCache userInfoQueryCache;
+
+    private final ApplicationProperties.Pagination paginationProperties;
+
+    private final ApplicationProperties.Search.Fallback fallbackProperties;
+
+    private final ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory;
+
+    private final Validator validator;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final DistributionSummary queryCostSummary;
+
+    private final Counter rejectedQueriesCounter;
+
+    private final Counter fallbackSearchesCounter;
+
+    public UserInfoService(
+        UserInfoRepository userInfoRepository,
+        UserInfoSearchRepository userInfoSearchRepository,
+        UserInfoIndexOutboxRepository userInfoIndexOutboxRepository,
+        UserInfoChangeOutboxRepository userInfoChangeOutboxRepository,
+        AsyncCache<Long, UserInfo> userInfoCache,
+        AsyncCache<String, Long> userInfoCountCache,
+        UserInfoQueryCache userInfoQueryCache,
+        ApplicationProperties applicationProperties,
+        Validator validator,
+        TransactionalOperator transactionalOperator,
+        ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory,
+        MeterRegistry meterRegistry
+    ) {
         this.userInfoRepository = userInfoRepository;
         this.userInfoSearchRepository = userInfoSearchRepository;
+        this.userInfoIndexOutboxRepository = userInfoIndexOutboxRepository;
+        this.userInfoChangeOutboxRepository = userInfoChangeOutboxRepository;
+        this.changesEnabled = applicationProperties.getBroker().getChanges().isEnabled();
+        this.userInfoCache = userInfoCache;
+        this.userInfoCountCache = userInfoCountCache;
+        this.userInfoQueryCache = userInfoQueryCache;
+        this.paginationProperties = applicationProperties.getPagination();
+        this.fallbackProperties = applicationProperties.getSearch().getFallback();
+        this.circuitBreakerFactory = circuitBreakerFactory;
+        this.validator = validator;
+        this.transactionalOperator = transactionalOperator;
+        this.queryCostSummary = DistributionSummary.builder("userinfo.search.query.cost")
+            .description("Cost score of the search queries")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.rejectedQueriesCounter = Counter.builder("userinfo.search.query.rejected")
+            .description("Search queries rejected as too expensive")
+            .register(meterRegistry);
+        this.fallbackSearchesCounter = Counter.builder("userinfo.search.fallback")
+            .description("Searches answered by the database while Elasticsearch fails")
+            .register(meterRegistry);
     }
 
     /**
@@ -37,7 +151,12 @@ public class UserInfoService {
      */
     public Mono<UserInfo> save(UserInfo userInfo) {
         LOG.debug("Request to save UserInfo : {}", userInfo);
-        return userInfoRepository.save(userInfo).flatMap(userInfoSearchRepository::save);
+        UserInfoChangeType changeType = userInfo.getId() == null ? UserInfoChangeType.CREATED : UserInfoChangeType.UPDATED;
+        return userInfoRepository
+            .save(userInfo)
+            .flatMap(saved -> enqueueChange(saved, changeType))
+            .flatMap(this::evictFromCache)
+            .flatMap(saved -> evictCount(Mono.just(saved)));
     }
 
     /**
@@ -48,72 +167,169 @@ public class UserInfoService {
      */
     public Mono<UserInfo> update(UserInfo userInfo) {
         LOG.debug("Request to update UserInfo : {}", userInfo);
-        return userInfoRepository.save(userInfo).flatMap(userInfoSearchRepository::save);
+        return userInfoRepository
+            .save(userInfo)
+            .flatMap(saved -> enqueueChange(saved, UserInfoChangeType.UPDATED))
+            .flatMap(this::evictFromCache);
     }
 
     /**
      * Partially update a userInfo.
+     * <p>
+     * Only the non-null fields are written, with a single {@code UPDATE} statement; the row is then
+     * reloaded to return it.
      *
      * @param userInfo the entity to update partially.
-     * @return the persisted entity.
+     * @return the persisted entity, or empty if it does not exist.
      */
     public Mono<UserInfo> partialUpdate(UserInfo userInfo) {
         LOG.debug("Request to partially update UserInfo : {}", userInfo);
+        return userInfoRepository
+            .updateNonNullFields(userInfo)
+            .filter(Boolean::booleanValue)
+            .flatMap(found ->
+                enqueueChange(userInfo.getId(), UserInfoChangeType.UPDATED).then(userInfoRepository.findById(userInfo.getId()))
+            )
+            .flatMap(this::evictFromCache);
+    }
 
+    /**
+     * Partially update a userInfo, without reading it back from the database.
+     *
+     * @param userInfo the entity to update partially.
+     * @return {@code true} if the entity was updated, {@code false} if it does not exist.
+     */
+    public Mono<Boolean> partialUpdateWithoutResult(UserInfo userInfo) {
+        LOG.debug("Request to partially update UserInfo without result : {}", userInfo);
         return userInfoRepository
-            .findById(userInfo.getId())
-            .map(existingUserInfo -> {
-                if (userInfo.getUserId() != null) {
-                    existingUserInfo.setUserId(userInfo.getUserId());
-                }
-                if (userInfo.getFirstname() != null) {
-                    existingUserInfo.setFirstname(userInfo.getFirstname());
-                }
-                if (userInfo.getLastname() != null) {
-                    existingUserInfo.setLastname(userInfo.getLastname());
-                }
-                if (userInfo.getAlias() != null) {
-                    existingUserInfo.setAlias(userInfo.getAlias());
-                }
-                if (userInfo.getGender() != null) {
-                    existingUserInfo.setGender(userInfo.getGender());
-                }
-                if (userInfo.getEmail() != null) {
-                    existingUserInfo.setEmail(userInfo.getEmail());
-                }
-                if (userInfo.getPhone() != null) {
-                    existingUserInfo.setPhone(userInfo.getPhone());
-                }
-                if (userInfo.getAddressLine1() != null) {
-                    existingUserInfo.setAddressLine1(userInfo.getAddressLine1());
-                }
-                if (userInfo.getAddressLine2() != null) {
-                    existingUserInfo.setAddressLine2(userInfo.getAddressLine2());
-                }
-                if (userInfo.getCity() != null) {
-                    existingUserInfo.setCity(userInfo.getCity());
-                }
-                if (userInfo.getCountry() != null) {
-                    existingUserInfo.setCountry(userInfo.getCountry());
-                }
-                if (userInfo.getCreatedAt() != null) {
-                    existingUserInfo.setCreatedAt(userInfo.getCreatedAt());
-                }
-                if (userInfo.getUpdatedAt() != null) {
-                    existingUserInfo.setUpdatedAt(userInfo.getUpdatedAt());
+            .updateNonNullFields(userInfo)
+            .flatMap(found -> {
+                if (!found) {
+                    return Mono.just(false);
                 }
+                return enqueueChange(userInfo.getId(), UserInfoChangeType.UPDATED).then(evictFromCache(userInfo.getId(), Mono.just(true)));
+            });
+    }
 
-                return existingUserInfo;
+    /**
+     * Partially update userInfos, in a single transaction.
+     * <p>
+     * The non-null fields of the entities are written with a single multi-row {@code UPDATE} statement, and their
+     * changes are recorded with a single statement per outbox.
+     *
+     * @param userInfos the entities to update partially, at most one per id.
+     * @return the ids of the updated entities; the entities which do not exist are ignored.
+     */
+    public Mono<List<Long>> partialUpdateAll(List<UserInfo> userInfos) {
+        LOG.debug("Request to partially update {} UserInfos", userInfos.size());
+        return userInfoRepository
+            .updateNonNullFieldsAll(userInfos)
+            .flatMap(ids -> {
+                Map<Long, UserInfoChangeType> changeTypes = new LinkedHashMap<>();
+                ids.forEach(id -> changeTypes.put(id, UserInfoChangeType.UPDATED));
+                return enqueueChanges(changeTypes).thenReturn(ids);
+            })
+            .flatMap(ids -> Flux.fromIterable(ids).concatMap(id -> evictFromCache(id, Mono.just(id))).collectList());
+    }
+
+    /**
+     * Create or update userInfos, by identity provider user id.
+     * <p>
+     * Items are validated, then written by batches of {@value #BULK_BATCH_SIZE} with a multi-row upsert, each batch in
+     * its own transaction. The result of a batch is emitted as soon as it is written, so neither the request nor the
+     * response is held in memory. The ids of the given items are ignored.
+     *
+     * @param userInfos the entities to create or update.
+     * @return the result of each item, in the order of the items.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Flux<UserInfoBulkItemResult> bulkUpsert(Flux<UserInfo> userInfos) {
+        LOG.debug("Request to bulk upsert UserInfos");
+        return userInfos.index().buffer(BULK_BATCH_SIZE).concatMap(this::upsertBatch);
+    }
+
+    private Flux<UserInfoBulkItemResult> upsertBatch(List<Tuple2<Long, UserInfo>> batch) {
+        List<UserInfoBulkItemResult> invalid = new ArrayList<>();
+        List<Tuple2<Long, UserInfo>> valid = new ArrayList<>();
+        for (Tuple2<Long, UserInfo> item : batch) {
+            List<String> errors = validate(item.getT2());
+            if (errors.isEmpty()) {
+                valid.add(item);
+            } else {
+                invalid.add(new UserInfoBulkItemResult(item.getT1(), Status.INVALID, null, item.getT2().getUserId(), errors));
+            }
+        }
+        if (valid.isEmpty()) {
+            return Flux.fromIterable(invalid);
+        }
+
+        List<UserInfo> rows = valid.stream().map(Tuple2::getT2).toList();
+        List<String> userIds = rows.stream().map(UserInfo::getUserId).distinct().toList();
+        return userInfoRepository
+            .findIdsByUserIds(userIds)
+            .flatMap(existing ->
+                userInfoRepository
+                    .upsertAllByUserId(rows)
+                    .then(userInfoRepository.findIdsByUserIds(userIds))
+                    .flatMap(ids -> {
+                        Map<Long, UserInfoChangeType> changeTypes = new LinkedHashMap<>();
+                        ids.forEach((userId, id) ->
+                            changeTypes.put(id, existing.containsKey(userId) ? UserInfoChangeType.UPDATED : UserInfoChangeType.CREATED)
+                        );
+                        return enqueueChanges(changeTypes).thenReturn(ids);
+                    })
+                    .map(ids -> {
+                        // a user id repeated in the batch is created by its first occurrence, and updated by the next ones
+                        Set<String> seen = new HashSet<>(existing.keySet());
+                        return valid
+                            .stream()
+                            .map(item -> {
+                                String userId = item.getT2().getUserId();
+                                Status status = seen.add(userId) ? Status.CREATED : Status.UPDATED;
+                                return new UserInfoBulkItemResult(item.getT1(), status, ids.get(userId), userId, null);
+                            })
+                            .toList();
+                    })
+            )
+            .as(transactionalOperator::transactional)
+            .doOnSuccess(written -> {
+                userInfoCache.synchronous().invalidateAll(written.stream().map(UserInfoBulkItemResult::getId).toList());
+                userInfoCountCache.synchronous().invalidateAll();
+                userInfoQueryCache.invalidate();
             })
-            .flatMap(userInfoRepository::save)
-            .flatMap(savedUserInfo -> {
-                userInfoSearchRepository.save(savedUserInfo);
-                return Mono.just(savedUserInfo);
+            .onErrorResume(e -> {
+                LOG.warn("Bulk upsert of {} UserInfos failed", valid.size(), e);
+                List<String> errors = List.of(String.valueOf(e.getMessage()));
+                return Mono.just(
+                    valid
+                        .stream()
+                        .map(item -> new UserInfoBulkItemResult(item.getT1(), Status.FAILED, null, item.getT2().getUserId(), errors))
+                        .toList()
+                );
+            })
+            .flatMapIterable(written -> {
+                List<UserInfoBulkItemResult> results = new ArrayList<>(invalid);
+                results.addAll(written);
+                results.sort(Comparator.comparingLong(UserInfoBulkItemResult::getIndex));
+                return results;
             });
     }
 
+    private List<String> validate(UserInfo userInfo) {
+        // the id is generated, or resolved from the user id
+        return validator
+            .validate(userInfo)
+            .stream()
+            .filter(violation -> !"id".equals(violation.getPropertyPath().toString()))
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .toList();
+    }
+
     /**
      * Get all the userInfos.
+     * <p>
+     * Pages are served from the {@link UserInfoQueryCache}.
      *
      * @param pageable the pagination information.
      * @return the list of entities.
@@ -121,28 +337,76 @@ public class UserInfoService {
     @Transactional(readOnly = true)
     public Flux<UserInfo> findAll(Pageable pageable) {
         LOG.debug("Request to get all UserInfos");
-        return userInfoRepository.findAllBy(pageable);
+        return userInfoQueryCache
+            .get("list", null, pageable, () -> userInfoRepository.findAllBy(pageable).collectList())
+            .flatMapIterable(Function.identity());
     }
 
     /**
-     * Returns the number of userInfos available.
-     * @return the number of entities in the database.
+     * Get a keyset page of userInfos, following the given cursor.
      *
+     * @param after the position of the last row of the previous page, or {@code null} for the first page.
+     * @param pageable the page size and sort order.
+     * @return the list of entities.
      */
-    public Mono<Long> countAll() {
-        return userInfoRepository.count();
+    @Transactional(readOnly = true)
+    public Flux<UserInfo> findAllAfter(KeysetCursor after, Pageable pageable) {
+        LOG.debug("Request to get a keyset page of UserInfos after {}", after);
+        return userInfoRepository.findAllBy(pageable, after);
+    }
+
+    /**
+     * Stream all the userInfos, ordered by id.
+     * <p>
+     * Rows are read in keyset chunks, and the next chunk is only queried once the previous one has been consumed
+     * downstream, so memory stays bounded by the chunk size whatever the table size. All the chunks are read in the same
+     * {@code REPEATABLE READ} transaction, and thus from the same consistent snapshot.
+     *
+     * @return the entities.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Flux<UserInfo> exportAll() {
+        LOG.debug("Request to export all UserInfos");
+        Sort.Order order = Sort.Order.asc("id");
+        Pageable chunk = PageRequest.of(0, EXPORT_CHUNK_SIZE, Sort.by(order));
+        return userInfoRepository
+            .findAllBy(chunk, null)
+            .collectList()
+            .expand(rows ->
+                rows.size() < EXPORT_CHUNK_SIZE
+                    ? Mono.<List<UserInfo>>empty()
+                    : userInfoRepository
+                        .findAllBy(chunk, userInfoRepository.keysetCursorOf(rows.get(rows.size() - 1), order))
+                        .collectList()
+            )
+            .concatMapIterable(rows -> rows, 1);
     }
 
     /**
-     * Returns the number of userInfos available in search repository.
+     * Returns the number of userInfos available, computed with the configured
+     * {@link ApplicationProperties.Pagination.CountStrategy}.
+     * @return the number of entities in the database.
      *
      */
-    public Mono<Long> searchCount() {
-        return userInfoSearchRepository.count();
+    public Mono<Long> countAll() {
+        return switch (paginationProperties.getCountStrategy()) {
+            case CACHED -> Mono.fromFuture(
+                () -> userInfoCountCache.get(COUNT_CACHE_KEY, (key, executor) -> userInfoRepository.count().toFuture()),
+                true
+            );
+            case ESTIMATED -> userInfoRepository
+                .estimateCount()
+                .filter(estimate -> estimate >= paginationProperties.getEstimatedCountThreshold())
+                .switchIfEmpty(Mono.defer(userInfoRepository::count));
+            default -> userInfoRepository.count();
+        };
     }
 
     /**
      * Get one userInfo by id.
+     * <p>
+     * Reads go through the {@code userInfo} cache: concurrent misses for the same id share a single
+     * database lookup, and an empty result is not cached.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -150,7 +414,52 @@ public class UserInfoService {
     @Transactional(readOnly = true)
     public Mono<UserInfo> findOne(Long id) {
         LOG.debug("Request to get UserInfo : {}", id);
-        return userInfoRepository.findById(id);
+        return Mono.fromFuture(() -> userInfoCache.get(id, (key, executor) -> userInfoRepository.findById(key).toFuture()), true);
+    }
+
+    /**
+     * Get the userInfos with the given ids, in the order of the ids.
+     * <p>
+     * Cached entities are served from the {@code userInfo} cache, and all the others are loaded with batched
+     * {@code IN (...)} queries. Missing ids are skipped.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities.
+     */
+    @Transactional(readOnly = true)
+    public Flux<UserInfo> findAllByIds(List<Long> ids) {
+        LOG.debug("Request to get UserInfos : {}", ids);
+        return Mono.fromFuture(
+            () ->
+                userInfoCache.getAll(ids, (missingIds, executor) ->
+                    userInfoRepository.findAllByIds(List.copyOf(missingIds)).collectMap(UserInfo::getId).toFuture()
+                ),
+            true
+        ).flatMapIterable(userInfos -> ids.stream().distinct().map(userInfos::get).filter(Objects::nonNull).toList());
+    }
+
+    /**
+     * Get one userInfo by identity provider user id.
+     *
+     * @param userId the identity provider user id of the entity.
+     * @return the entity.
+     */
+    @Transactional(readOnly = true)
+    public Mono<UserInfo> findOneByUserId(String userId) {
+        LOG.debug("Request to get UserInfo by userId : {}", userId);
+        return userInfoRepository.findOneByUserId(userId);
+    }
+
+    /**
+     * Get the userInfos with the given email.
+     *
+     * @param email the email of the entities.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Flux<UserInfo> findAllByEmail(String email) {
+        LOG.debug("Request to get UserInfos by email : {}", email);
+        return userInfoRepository.findAllByEmail(email);
     }
 
     /**
@@ -161,19 +470,206 @@ public class UserInfoService {
      */
     public Mono<Void> delete(Long id) {
         LOG.debug("Request to delete UserInfo : {}", id);
-        return userInfoRepository.deleteById(id).then(userInfoSearchRepository.deleteById(id));
+        return userInfoRepository
+            .deleteExistingById(id)
+            // a missing userInfo has no document to remove and no change to publish
+            .flatMap(deleted -> deleted ? enqueueChange(id, UserInfoChangeType.DELETED) : Mono.<Void>empty())
+            .then(evictFromCache(id, evictCount(Mono.<Void>empty())));
     }
 
     /**
      * Search for the userInfo corresponding to the query.
+     * <p>
+     * Pages are served from the {@link UserInfoQueryCache}.
      *
      * @param query the query of the search.
      * @param pageable the pagination information.
-     * @return the list of entities.
+     * @return the page of entities, with the total number of matches.
      */
     @Transactional(readOnly = true)
-    public Flux<UserInfo> search(String query, Pageable pageable) {
+    public Mono<Page<UserInfo>> search(String query, Pageable pageable) {
         LOG.debug("Request to search for a page of UserInfos for query {}", query);
-        return userInfoSearchRepository.search(query, pageable);
+        Mono<Page<UserInfo>> search = userInfoQueryCache.get("search", query, pageable, () ->
+            userInfoSearchRepository.searchPage(query, pageable)
+        );
+        if (!fallbackProperties.isEnabled()) {
+            return search;
+        }
+        return circuitBreakerFactory
+            .create(SEARCH_CIRCUIT_BREAKER)
+            .run(search, e -> {
+                if (e instanceof QueryTooExpensiveException) {
+                    return Mono.error(e);
+                }
+                if (e instanceof CallNotPermittedException) {
+                    LOG.debug("Searching the database for query {}, the search circuit is open", query);
+                } else {
+                    LOG.warn("Searching the database for query {}, the search failed: {}", query, e.toString());
+                }
+                fallbackSearchesCounter.increment();
+                return searchDatabase(query, pageable);
+            });
+    }
+
+    /**
+     * Search for the userInfos corresponding to the query on the database, with a full-text query on the firstname,
+     * lastname, alias and email. Only the words of the query are matched, see {@link FullTextQuery}, and only the
+     * first {@code application.search.fallback.max-results} rows can be paged through; the hits are ordered by
+     * relevance, whatever the sort of {@code pageable}. A query without positive words, like {@code -smith}, returns
+     * the rows without the negated words, ordered by id.
+     *
+     * @param query the query of the search.
+     * @param pageable the pagination information.
+     * @return the page of entities, with a total bounded by the maximum number of results.
+     */
+    public Mono<Page<UserInfo>> searchDatabase(String query, Pageable pageable) {
+        LOG.debug("Request to search the database for a page of UserInfos for query {}", query);
+        int maxResults = fallbackProperties.getMaxResults();
+        long remaining = Math.max(maxResults - pageable.getOffset(), 0);
+        FullTextQuery fullText = FullTextQuery.of(query, fallbackProperties.getMaxWords());
+        Pageable byId = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id"));
+        Flux<UserInfo> content;
+        Mono<Long> total;
+        if (!fullText.getBooleanMode().isEmpty()) {
+            content = userInfoRepository.searchFullText(fullText.getBooleanMode(), pageable);
+            total = userInfoRepository.countFullText(fullText.getBooleanMode(), maxResults);
+        } else if (!fullText.getExclusions().isEmpty()) {
+            // negated words only, like -smith: all the rows but the ones with these words, by id
+            content = userInfoRepository.findAllNotMatchingFullText(fullText.getExclusions(), byId);
+            total = userInfoRepository.countNotMatchingFullText(fullText.getExclusions(), maxResults);
+        } else {
+            // nothing to match, like a match all query: the rows by id
+            content = userInfoRepository.findAllBy(byId);
+            total = countAll().map(count -> Math.min(count, maxResults));
+        }
+        return Mono.zip(remaining > 0 ? content.take(remaining).collectList() : Mono.just(List.<UserInfo>of()), total).map(
+            tuple -> new PageImpl<>(tuple.getT1(), pageable, tuple.getT2())
+        );
+    }
+
+    /**
+     * Estimate the cost of a search query, and check that it is allowed.
+     *
+     * @param query the query of the search.
+     * @return the cost of the query.
+     * @throws QueryTooExpensiveException if the query is too expensive to run.
+     */
+    public QueryStringCost analyzeQuery(String query) {
+        try {
+            QueryStringCost cost = userInfoSearchRepository.analyze(query);
+            queryCostSummary.record(cost.getScore());
+            return cost;
+        } catch (QueryTooExpensiveException e) {
+            rejectedQueriesCounter.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Suggest userInfos whose firstname, lastname or alias starts with the prefix, for autocompletion.
+     *
+     * @param prefix the prefix typed so far.
+     * @param size the maximum number of suggestions.
+     * @return the suggestions, best match first.
+     */
+    @Transactional(readOnly = true)
+    public Flux<UserInfoSuggestion> suggest(String prefix, int size) {
+        LOG.debug("Request to suggest UserInfos for prefix {}", prefix);
+        return userInfoSearchRepository.suggest(prefix, size).map(UserInfoSuggestion::new);
+    }
+
+    /**
+     * Search for the userInfos matching the structured filter.
+     *
+     * @param filter the filters, and the optional free-text query.
+     * @param pageable the pagination information.
+     * @return the page of entities, with the total number of matches.
+     */
+    @Transactional(readOnly = true)
+    public Mono<Page<UserInfo>> search(UserInfoSearchFilter filter, Pageable pageable) {
+        LOG.debug("Request to search for a page of UserInfos for filter {}", filter);
+        return userInfoSearchRepository.searchPage(filter, pageable);
+    }
+
+    /**
+     * Search for the userInfos corresponding to the query, following a cursor.
+     * <p>
+     * Hits are sorted by score then id, and read from a point in time, so that pages are consistent with each other
+     * and cost the same whatever their depth.
+     *
+     * @param query the query of the search.
+     * @param after the cursor of the previous page, or {@code null} for the first page.
+     * @param size the maximum number of hits; the point in time is released once fewer hits are found.
+     * @return the hits, with the point in time id to continue from.
+     */
+    @Transactional(readOnly = true)
+    public Mono<SearchHits<UserInfo>> searchAfter(String query, SearchCursor after, int size) {
+        LOG.debug("Request to search for UserInfos for query {} after {}", query, after);
+        return userInfoSearchRepository.searchAfter(query, after, size);
+    }
+
+    /**
+     * Record, in the current transaction, that the search index document of the userInfo has to be refreshed, and
+     * that its change has to be published. The index is updated asynchronously by the {@link UserInfoIndexRelay},
+     * and the change published by the {@link UserInfoChangePublisher}.
+     */
+    private Mono<UserInfo> enqueueChange(UserInfo userInfo, UserInfoChangeType changeType) {
+        return enqueueChange(userInfo.getId(), changeType).thenReturn(userInfo);
+    }
+
+    private Mono<Void> enqueueChange(Long id, UserInfoChangeType changeType) {
+        return enqueueChanges(Map.of(id, changeType));
+    }
+
+    private Mono<Void> enqueueChanges(Map<Long, UserInfoChangeType> changeTypes) {
+        Mono<Void> indexRefresh = userInfoIndexOutboxRepository.enqueueAll(changeTypes.keySet());
+        return changesEnabled ? indexRefresh.then(userInfoChangeOutboxRepository.enqueueAll(changeTypes)) : indexRefresh;
+    }
+
+    private Mono<UserInfo> evictFromCache(UserInfo userInfo) {
+        return evictFromCache(userInfo.getId(), Mono.just(userInfo));
+    }
+
+    /**
+     * Evict the cached userInfo and make the cached query results stale now, and again once the surrounding
+     * transaction completes, so that a concurrent read of the not yet committed row cannot leave a stale entry behind.
+     */
+    private <T> Mono<T> evictFromCache(Long id, Mono<T> result) {
+        return evictNowAndAfterCompletion(
+            () -> {
+                userInfoCache.synchronous().invalidate(id);
+                userInfoQueryCache.invalidate();
+            },
+            result
+        );
+    }
+
+    /**
+     * Evict the cached count now, and again once the surrounding transaction completes, so that a concurrent count
+     * of the not yet committed rows cannot stay cached.
+     */
+    private <T> Mono<T> evictCount(Mono<T> result) {
+        return evictNowAndAfterCompletion(() -> userInfoCountCache.synchronous().invalidateAll(), result);
+    }
+
+    private <T> Mono<T> evictNowAndAfterCompletion(Runnable eviction, Mono<T> result) {
+        return Mono.defer(() -> {
+            eviction.run();
+            return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(synchronizationManager ->
+                    synchronizationManager.registerSynchronization(
+                        new TransactionSynchronization() {
+                            @Override
+                            public Mono<Void> afterCompletion(int status) {
+                                eviction.run();
+                                return Mono.empty();
+                            }
+                        }
+                    )
+                )
+                .onErrorResume(NoTransactionException.class, e -> Mono.empty())
+                .then(result);
+        });
     }
 }
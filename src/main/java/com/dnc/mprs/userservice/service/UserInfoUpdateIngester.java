@@ -0,0 +1,156 @@
+package com.dnc.mprs.userservice.service;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import com.dnc.mprs.userservice.domain.UserInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Applies the UserInfo update commands consumed from Kafka, a batch at a time.
+ * <p>
+ * A command is a partial UserInfo in JSON, with its id: like a {@code PATCH}, only its non-null fields are written.
+ * The commands of a UserInfo are merged, in the order they were consumed, into a single update, so that a later
+ * command always wins. The updates of the batch are then split in up to {@code concurrency} groups, each written in
+ * its own transaction, in parallel: a burst of commands holds at most {@code concurrency} database connections.
+ * <p>
+ * Invalid commands, and commands of UserInfos which do not exist, are skipped, so that they cannot block the
+ * following ones.
+ */
+@Service
+public class UserInfoUpdateIngester {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoUpdateIngester.class);
+
+    private final UserInfoService userInfoService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final ApplicationProperties.Broker.Updates properties;
+
+    private final Counter appliedCounter;
+
+    private final Counter invalidCounter;
+
+    private final Counter missingCounter;
+
+    public UserInfoUpdateIngester(
+        UserInfoService userInfoService,
+        ObjectMapper objectMapper,
+        Validator validator,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.userInfoService = userInfoService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.properties = applicationProperties.getBroker().getUpdates();
+        this.appliedCounter = Counter.builder("userinfo.updates.applied")
+            .description("UserInfo updates written from the update commands")
+            .register(meterRegistry);
+        this.invalidCounter = Counter.builder("userinfo.updates.skipped")
+            .description("UserInfo update commands skipped")
+            .tag("reason", "invalid")
+            .register(meterRegistry);
+        this.missingCounter = Counter.builder("userinfo.updates.skipped")
+            .description("UserInfo update commands skipped")
+            .tag("reason", "missing")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Apply a batch of update commands.
+     *
+     * @param commands the commands, in JSON, in the order they were consumed.
+     * @return the number of updated UserInfos.
+     */
+    public Mono<Integer> ingest(List<byte[]> commands) {
+        LOG.debug("Request to apply {} UserInfo update commands", commands.size());
+        Map<Long, UserInfo> updates = new LinkedHashMap<>();
+        for (byte[] command : commands) {
+            UserInfo update = parse(command);
+            if (update == null) {
+                invalidCounter.increment();
+            } else {
+                updates.merge(update.getId(), update, UserInfoUpdateIngester::merge);
+            }
+        }
+        if (updates.isEmpty()) {
+            return Mono.just(0);
+        }
+        int concurrency = Math.max(1, properties.getConcurrency());
+        int groupSize = (updates.size() + concurrency - 1) / concurrency;
+        return Flux.fromIterable(updates.values())
+            .buffer(groupSize)
+            .flatMap(
+                group ->
+                    userInfoService
+                        .partialUpdateAll(group)
+                        .doOnNext(updated -> {
+                            appliedCounter.increment(updated.size());
+                            missingCounter.increment(group.size() - updated.size());
+                        }),
+                concurrency
+            )
+            .map(List::size)
+            .reduce(0, Integer::sum);
+    }
+
+    private UserInfo parse(byte[] command) {
+        if (command == null || command.length == 0) {
+            return null;
+        }
+        UserInfo update;
+        try {
+            update = objectMapper.readValue(command, UserInfo.class);
+        } catch (IOException e) {
+            LOG.warn("Skipping an unreadable UserInfo update command: {}", e.getMessage());
+            return null;
+        }
+        // only the given fields are written, so the constraints of the missing ones do not apply
+        List<String> errors = validator
+            .validate(update)
+            .stream()
+            .filter(violation -> violation.getInvalidValue() != null)
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .toList();
+        if (update.getId() == null || !errors.isEmpty()) {
+            LOG.warn("Skipping an invalid update command of the UserInfo {}: {}", update.getId(), errors);
+            return null;
+        }
+        return update;
+    }
+
+    /**
+     * Merge a command into the previous commands of the same UserInfo.
+     */
+    private static UserInfo merge(UserInfo previous, UserInfo next) {
+        Optional.ofNullable(next.getUserId()).ifPresent(previous::setUserId);
+        Optional.ofNullable(next.getFirstname()).ifPresent(previous::setFirstname);
+        Optional.ofNullable(next.getLastname()).ifPresent(previous::setLastname);
+        Optional.ofNullable(next.getAlias()).ifPresent(previous::setAlias);
+        Optional.ofNullable(next.getGender()).ifPresent(previous::setGender);
+        Optional.ofNullable(next.getEmail()).ifPresent(previous::setEmail);
+        Optional.ofNullable(next.getPhone()).ifPresent(previous::setPhone);
+        Optional.ofNullable(next.getAddressLine1()).ifPresent(previous::setAddressLine1);
+        Optional.ofNullable(next.getAddressLine2()).ifPresent(previous::setAddressLine2);
+        Optional.ofNullable(next.getCity()).ifPresent(previous::setCity);
+        Optional.ofNullable(next.getCountry()).ifPresent(previous::setCountry);
+        Optional.ofNullable(next.getCreatedAt()).ifPresent(previous::setCreatedAt);
+        Optional.ofNullable(next.getUpdatedAt()).ifPresent(previous::setUpdatedAt);
+        return previous;
+    }
+}
@@ -0,0 +1,96 @@
+package com.dnc.mprs.userservice.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The outcome of one item of a bulk upsert of {@link com.dnc.mprs.userservice.domain.UserInfo}s.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class UserInfoBulkItemResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Status of a bulk item.
+     */
+    public enum Status {
+        CREATED,
+        UPDATED,
+        INVALID,
+        FAILED,
+    }
+
+    private long index;
+
+    private Status status;
+
+    private Long id;
+
+    private String userId;
+
+    private List<String> errors;
+
+    public UserInfoBulkItemResult() {}
+
+    public UserInfoBulkItemResult(long index, Status status, Long id, String userId, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.userId = userId;
+        this.errors = errors;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public void setIndex(long index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserInfoBulkItemResult{" +
+            "index=" + getIndex() +
+            ", status=" + getStatus() +
+            ", id=" + getId() +
+            ", userId='" + getUserId() + "'" +
+            ", errors=" + getErrors() +
+            "}";
+    }
+}
@@ -0,0 +1,61 @@
+package com.dnc.mprs.userservice.service.dto;
+
+import com.dnc.mprs.userservice.domain.UserInfo;
+import com.dnc.mprs.userservice.domain.enumeration.UserInfoChangeType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+
+/**
+ * A change event of a {@link UserInfo}, published to the change topic with the id of the UserInfo as key.
+ * <p>
+ * Events carry the state of the UserInfo when they are published, not a diff: the last event of a key is
+ * enough to know the current state of the UserInfo.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserInfoChangeEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private UserInfoChangeType type;
+
+    private Long id;
+
+    private UserInfo userInfo;
+
+    public UserInfoChangeEvent() {}
+
+    public UserInfoChangeEvent(UserInfoChangeType type, Long id, UserInfo userInfo) {
+        this.type = type;
+        this.id = id;
+        this.userInfo = userInfo;
+    }
+
+    public UserInfoChangeType getType() {
+        return type;
+    }
+
+    public void setType(UserInfoChangeType type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UserInfo getUserInfo() {
+        return userInfo;
+    }
+
+    public void setUserInfo(UserInfo userInfo) {
+        this.userInfo = userInfo;
+    }
+
+    @Override
+    public String toString() {
+        return "UserInfoChangeEvent{type=" + type + ", id=" + id + "}";
+    }
+}
@@ -0,0 +1,126 @@
+package com.dnc.mprs.userservice.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Progress of the last rebuild of the UserInfo search index.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserInfoReindexStatus implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    private State state;
+
+    private String indexName;
+
+    private Long total;
+
+    private long processed;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    private Double documentsPerSecond;
+
+    private Long etaSeconds;
+
+    private String error;
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public void setIndexName(String indexName) {
+        this.indexName = indexName;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(long processed) {
+        this.processed = processed;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Double getDocumentsPerSecond() {
+        return documentsPerSecond;
+    }
+
+    public void setDocumentsPerSecond(Double documentsPerSecond) {
+        this.documentsPerSecond = documentsPerSecond;
+    }
+
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserInfoReindexStatus{" +
+            "state=" + getState() +
+            ", indexName='" + getIndexName() + "'" +
+            ", total=" + getTotal() +
+            ", processed=" + getProcessed() +
+            ", startedAt=" + getStartedAt() +
+            ", finishedAt=" + getFinishedAt() +
+            ", documentsPerSecond=" + getDocumentsPerSecond() +
+            ", etaSeconds=" + getEtaSeconds() +
+            "}";
+    }
+}
@@ -0,0 +1,72 @@
+package com.dnc.mprs.userservice.service.dto;
+
+import com.dnc.mprs.userservice.domain.UserInfo;
+import java.io.Serializable;
+
+/**
+ * An autocomplete suggestion for a {@link UserInfo}: its id and display fields only.
+ */
+public class UserInfoSuggestion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String firstname;
+
+    private String lastname;
+
+    private String alias;
+
+    public UserInfoSuggestion() {}
+
+    public UserInfoSuggestion(UserInfo userInfo) {
+        this.id = userInfo.getId();
+        this.firstname = userInfo.getFirstname();
+        this.lastname = userInfo.getLastname();
+        this.alias = userInfo.getAlias();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFirstname() {
+        return firstname;
+    }
+
+    public void setFirstname(String firstname) {
+        this.firstname = firstname;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public void setLastname(String lastname) {
+        this.lastname = lastname;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public void setAlias(String alias) {
+        this.alias = alias;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserInfoSuggestion{" +
+            "id=" + getId() +
+            ", firstname='" + getFirstname() + "'" +
+            ", lastname='" + getLastname() + "'" +
+            ", alias='" + getAlias() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,41 @@
+package com.dnc.mprs.userservice.web.rest;
+
+import com.dnc.mprs.userservice.service.UserInfoChangePublisher;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Management endpoint of the UserInfo change topic, at {@code /management/userinfochanges}.
+ * <p>
+ * {@code GET} returns the number of changes not published yet, and {@code POST} publishes the current state of all
+ * the UserInfos, so that the topic also holds the UserInfos which have not changed since it was created.
+ */
+@Component
+@Endpoint(id = "userinfochanges")
+public class UserInfoChangesEndpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoChangesEndpoint.class);
+
+    private final UserInfoChangePublisher userInfoChangePublisher;
+
+    public UserInfoChangesEndpoint(UserInfoChangePublisher userInfoChangePublisher) {
+        this.userInfoChangePublisher = userInfoChangePublisher;
+    }
+
+    @ReadOperation
+    public Mono<Map<String, Long>> status() {
+        return userInfoChangePublisher.countPending().map(pending -> Map.of("pending", pending));
+    }
+
+    @WriteOperation
+    public Mono<Map<String, Long>> snapshot() {
+        LOG.debug("Management request to publish a snapshot of the UserInfos");
+        return userInfoChangePublisher.enqueueSnapshot().map(enqueued -> Map.of("enqueued", enqueued));
+    }
+}
@@ -0,0 +1,49 @@
+package com.dnc.mprs.userservice.web.rest;
+
+import com.dnc.mprs.userservice.service.UserInfoReindexService;
+import com.dnc.mprs.userservice.service.dto.UserInfoReindexStatus;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Management endpoint to rebuild the UserInfo search index, at {@code /management/userinforeindex}.
+ * <p>
+ * {@code GET} returns the progress of the running, or last, rebuild, {@code POST} starts a rebuild, and {@code DELETE}
+ * cancels it, and deletes the index being built, like the one left behind by an instance which crashed.
+ */
+@Component
+@Endpoint(id = "userinforeindex")
+public class UserInfoReindexEndpoint {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserInfoReindexEndpoint.class);
+
+    private final UserInfoReindexService userInfoReindexService;
+
+    public UserInfoReindexEndpoint(UserInfoReindexService userInfoReindexService) {
+        this.userInfoReindexService = userInfoReindexService;
+    }
+
+    @ReadOperation
+    public UserInfoReindexStatus status() {
+        return userInfoReindexService.getStatus();
+    }
+
+    @WriteOperation
+    public UserInfoReindexStatus start() {
+        LOG.debug("Management request to rebuild the UserInfo search index");
+        return userInfoReindexService.start();
+    }
+
+    @DeleteOperation
+    public Mono<List<String>> discard() {
+        LOG.debug("Management request to discard the UserInfo search index being built");
+        return userInfoReindexService.discard();
+    }
+}
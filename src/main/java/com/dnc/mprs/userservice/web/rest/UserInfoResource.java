@@ -1,8 +1,15 @@
 package com.dnc.mprs.userservice.web.rest;
 
 import com.dnc.mprs.userservice.domain.UserInfo;
+import com.dnc.mprs.userservice.repository.KeysetCursor;
 import com.dnc.mprs.userservice.repository.UserInfoRepository;
+import com.dnc.mprs.userservice.repository.search.QueryStringCost;
+import com.dnc.mprs.userservice.repository.search.QueryTooExpensiveException;
+import com.dnc.mprs.userservice.repository.search.SearchCursor;
+import com.dnc.mprs.userservice.repository.search.UserInfoSearchFilter;
 import com.dnc.mprs.userservice.service.UserInfoService;
+import com.dnc.mprs.userservice.service.dto.UserInfoBulkItemResult;
+import com.dnc.mprs.userservice.service.dto.UserInfoSuggestion;
 import com.dnc.mprs.userservice.web.rest.errors.BadRequestAlertException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -15,7 +22,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +34,7 @@ import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.ForwardedHeaderUtils;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import tech.jhipster.web.util.HeaderUtil;
@@ -40,6 +52,20 @@ public class UserInfoResource {
 
     private static final String ENTITY_NAME = "userserviceUserInfo";
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String QUERY_COST_HEADER = "X-Query-Cost";
+
+    private static final int MGET_MAX_IDS = 1000;
+
+    private static final int SUGGEST_MAX_SIZE = 20;
+
+    private static final String PREFER_HEADER = "Prefer";
+
+    private static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+
+    private static final String RETURN_MINIMAL = "return=minimal";
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -78,6 +104,25 @@ public class UserInfoResource {
             });
     }
 
+    /**
+     * {@code POST  /user-infos/_bulk} : create or update userInfos, by identity provider user id.
+     * <p>
+     * The body is either a JSON array or newline delimited JSON. Items are read, written and reported as they
+     * arrive, so that large payloads are not held in memory.
+     *
+     * @param userInfos the userInfos to create or update.
+     * @return the {@link Flux} of the results of each item, as newline delimited JSON, in the order of the items.
+     */
+    @PostMapping(
+        value = "/_bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public Flux<UserInfoBulkItemResult> bulkUpsertUserInfos(@RequestBody Flux<UserInfo> userInfos) {
+        LOG.debug("REST request to bulk upsert UserInfos");
+        return userInfoService.bulkUpsert(userInfos);
+    }
+
     /**
      * {@code PUT  /user-infos/:id} : Updates an existing userInfo.
      *
@@ -121,19 +166,23 @@ public class UserInfoResource {
 
     /**
      * {@code PATCH  /user-infos/:id} : Partial updates given fields of an existing userInfo, field will ignore if it is null
+     * <p>
+     * With a {@code Prefer: return=minimal} header, the updated userInfo is not read back and no body is returned.
      *
      * @param id the id of the userInfo to save.
      * @param userInfo the userInfo to update.
+     * @param prefer the {@code Prefer} header, if any.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated userInfo,
-     * or with status {@code 400 (Bad Request)} if the userInfo is not valid,
-     * or with status {@code 404 (Not Found)} if the userInfo is not found,
+     * or with status {@code 204 (No Content)} if a minimal return was requested,
+     * or with status {@code 400 (Bad Request)} if the userInfo is not valid or is not found,
      * or with status {@code 500 (Internal Server Error)} if the userInfo couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/{id}", consumes = { "application/json", "application/merge-patch+json" })
     public Mono<ResponseEntity<UserInfo>> partialUpdateUserInfo(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody UserInfo userInfo
+        @NotNull @RequestBody UserInfo userInfo,
+        @RequestHeader(value = PREFER_HEADER, required = false) String prefer
     ) throws URISyntaxException {
         LOG.debug("REST request to partial update UserInfo partially : {}, {}", id, userInfo);
         if (userInfo.getId() == null) {
@@ -143,37 +192,61 @@ public class UserInfoResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        return userInfoRepository
-            .existsById(id)
-            .flatMap(exists -> {
-                if (!exists) {
-                    return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
-                }
-
-                Mono<UserInfo> result = userInfoService.partialUpdate(userInfo);
-
-                return result
-                    .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                    .map(res ->
-                        ResponseEntity.ok()
-                            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
-                            .body(res)
+        if (prefer != null && prefer.contains(RETURN_MINIMAL)) {
+            return userInfoService
+                .partialUpdateWithoutResult(userInfo)
+                .flatMap(found -> {
+                    if (!found) {
+                        return Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+                    }
+                    return Mono.just(
+                        ResponseEntity.noContent()
+                            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, id.toString()))
+                            .header(PREFERENCE_APPLIED_HEADER, RETURN_MINIMAL)
+                            .<UserInfo>build()
                     );
-            });
+                });
+        }
+
+        return userInfoService
+            .partialUpdate(userInfo)
+            .switchIfEmpty(Mono.error(new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound")))
+            .map(res ->
+                ResponseEntity.ok()
+                    .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, res.getId().toString()))
+                    .body(res)
+            );
     }
 
     /**
      * {@code GET  /user-infos} : get all the userInfos.
+     * <p>
+     * When the {@code cursor} parameter is present, keyset pagination is used instead of offsets: pass an empty
+     * cursor for the first page, then the value of the {@code X-Next-Cursor} header to get the following page.
+     * The total count is not computed in that mode, and the header is absent on the last page.
+     * <p>
+     * With {@code count=false}, the total count is skipped as well: no {@code X-Total-Count} header is returned,
+     * and the {@code Link} header only holds the first, previous and next pages.
      *
      * @param pageable the pagination information.
+     * @param cursor the keyset cursor returned with the previous page, if keyset pagination is used.
+     * @param count whether the total count should be computed.
      * @param request a {@link ServerHttpRequest} request.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userInfos in body.
      */
     @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
     public Mono<ResponseEntity<List<UserInfo>>> getAllUserInfos(
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "count", defaultValue = "true") boolean count,
         ServerHttpRequest request
     ) {
+        if (cursor != null) {
+            return getUserInfosAfter(cursor, pageable, request);
+        }
+        if (!count) {
+            return getUserInfosWithoutCount(pageable, request);
+        }
         LOG.debug("REST request to get a page of UserInfos");
         return userInfoService
             .countAll()
@@ -190,6 +263,83 @@ public class UserInfoResource {
             );
     }
 
+    private Mono<ResponseEntity<List<UserInfo>>> getUserInfosWithoutCount(Pageable pageable, ServerHttpRequest request) {
+        LOG.debug("REST request to get a page of UserInfos without total count");
+        return userInfoService
+            .findAll(pageable)
+            .collectList()
+            .map(userInfos -> {
+                UriComponentsBuilder uriBuilder = ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders());
+                int pageNumber = pageable.getPageNumber();
+                int pageSize = pageable.getPageSize();
+                List<String> links = new ArrayList<>();
+                // without a count, a full page is assumed to have a successor
+                if (userInfos.size() == pageSize) {
+                    links.add(pageLink(uriBuilder, pageNumber + 1, pageSize, "next"));
+                }
+                if (pageNumber > 0) {
+                    links.add(pageLink(uriBuilder, pageNumber - 1, pageSize, "prev"));
+                }
+                links.add(pageLink(uriBuilder, 0, pageSize, "first"));
+                HttpHeaders headers = new HttpHeaders();
+                headers.add(HttpHeaders.LINK, String.join(",", links));
+                return ResponseEntity.ok().headers(headers).body(userInfos);
+            });
+    }
+
+    private static String pageLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
+        String uri = uriBuilder.cloneBuilder().replaceQueryParam("page", pageNumber).replaceQueryParam("size", pageSize).toUriString();
+        return "<" + uri + ">; rel=\"" + relType + "\"";
+    }
+
+    private Mono<ResponseEntity<List<UserInfo>>> getUserInfosAfter(String cursor, Pageable pageable, ServerHttpRequest request) {
+        LOG.debug("REST request to get a keyset page of UserInfos after cursor {}", cursor);
+        KeysetCursor after;
+        try {
+            after = cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        // the cursor carries the sort order of the first page
+        Sort.Order order = after != null ? after.getOrder() : pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        int pageSize = pageable.getPageSize();
+        // one extra row is fetched to know whether there is a next page
+        return userInfoService
+            .findAllAfter(after, PageRequest.of(0, pageSize + 1, Sort.by(order)))
+            .collectList()
+            .onErrorMap(IllegalArgumentException.class, e -> new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "cursorinvalid"))
+            .map(userInfos -> {
+                if (userInfos.size() <= pageSize) {
+                    return ResponseEntity.ok().body(userInfos);
+                }
+                List<UserInfo> page = userInfos.subList(0, pageSize);
+                String nextCursor = userInfoRepository.keysetCursorOf(page.get(pageSize - 1), order).encode();
+                String nextUri = ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders())
+                    .replaceQueryParam("cursor", nextCursor)
+                    .replaceQueryParam("page")
+                    .replaceQueryParam("sort")
+                    .toUriString();
+                HttpHeaders headers = new HttpHeaders();
+                headers.add(NEXT_CURSOR_HEADER, nextCursor);
+                headers.add(HttpHeaders.LINK, "<" + nextUri + ">; rel=\"next\"");
+                return ResponseEntity.ok().headers(headers).body(page);
+            });
+    }
+
+    /**
+     * {@code GET  /user-infos/_export} : stream all the userInfos as newline delimited JSON.
+     * <p>
+     * The response is written as rows are read, honouring the backpressure of the client connection,
+     * and reflects a single consistent snapshot of the table.
+     *
+     * @return the {@link Flux} of all the userInfos, ordered by id.
+     */
+    @GetMapping(value = "/_export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserInfo> exportUserInfos() {
+        LOG.debug("REST request to export all UserInfos");
+        return userInfoService.exportAll();
+    }
+
     /**
      * {@code GET  /user-infos/:id} : get the "id" userInfo.
      *
@@ -203,6 +353,49 @@ public class UserInfoResource {
         return ResponseUtil.wrapOrNotFound(userInfo);
     }
 
+    /**
+     * {@code GET  /user-infos/_by-user-id?userId=:userId} : get the userInfo with the given identity provider user id.
+     *
+     * @param userId the identity provider user id of the userInfo to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the userInfo, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/_by-user-id")
+    public Mono<ResponseEntity<UserInfo>> getUserInfoByUserId(@RequestParam("userId") String userId) {
+        LOG.debug("REST request to get UserInfo by userId : {}", userId);
+        return ResponseUtil.wrapOrNotFound(userInfoService.findOneByUserId(userId));
+    }
+
+    /**
+     * {@code GET  /user-infos/_by-email?email=:email} : get the userInfos with the given email.
+     *
+     * @param email the email of the userInfos to retrieve.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userInfos in body.
+     */
+    @GetMapping(value = "/_by-email", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<UserInfo>>> getUserInfosByEmail(@RequestParam("email") String email) {
+        LOG.debug("REST request to get UserInfos by email : {}", email);
+        return userInfoService.findAllByEmail(email).collectList().map(userInfos -> ResponseEntity.ok().body(userInfos));
+    }
+
+    /**
+     * {@code POST  /user-infos/_mget} : get the userInfos with the given ids.
+     *
+     * @param ids the ids of the userInfos to retrieve, at most 1000.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the userInfos found, in the order of the ids,
+     * or with status {@code 400 (Bad Request)} if there are too many ids.
+     */
+    @PostMapping(value = "/_mget", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<List<UserInfo>>> getUserInfos(@NotNull @RequestBody List<Long> ids) {
+        LOG.debug("REST request to get UserInfos : {}", ids);
+        if (ids.size() > MGET_MAX_IDS) {
+            throw new BadRequestAlertException("At most " + MGET_MAX_IDS + " ids can be requested at once", ENTITY_NAME, "toomanyids");
+        }
+        if (ids.contains(null)) {
+            throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
+        }
+        return userInfoService.findAllByIds(ids).collectList().map(userInfos -> ResponseEntity.ok().body(userInfos));
+    }
+
     /**
      * {@code DELETE  /user-infos/:id} : delete the "id" userInfo.
      *
@@ -226,28 +419,154 @@ public class UserInfoResource {
     /**
      * {@code SEARCH  /user-infos/_search?query=:query} : search for the userInfo corresponding
      * to the query.
+     * <p>
+     * The hits and their total count are fetched with a single search request.
+     * <p>
+     * When the {@code cursor} parameter is present, hits are paginated with {@code search_after} over a point in time
+     * instead of offsets, which is not limited in depth: pass an empty cursor for the first page, then the value of the
+     * {@code X-Next-Cursor} header to get the following page. Hits are then sorted by score, then id, and the total
+     * count is not computed. The header is absent on the last page.
+     * <p>
+     * The estimated cost of the query is returned in the {@code X-Query-Cost} header. Queries with regular expressions,
+     * leading wildcards, or a cost over the limit are rejected with status {@code 400 (Bad Request)}.
      *
      * @param query the query of the userInfo search.
      * @param pageable the pagination information.
+     * @param cursor the cursor returned with the previous page, if cursor pagination is used.
      * @param request a {@link ServerHttpRequest} request.
      * @return the result of the search.
      */
     @GetMapping("/_search")
-    public Mono<ResponseEntity<Flux<UserInfo>>> searchUserInfos(
+    public Mono<ResponseEntity<List<UserInfo>>> searchUserInfos(
         @RequestParam("query") String query,
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(value = "cursor", required = false) String cursor,
         ServerHttpRequest request
     ) {
+        QueryStringCost cost = analyzeQuery(query);
+        if (cursor != null) {
+            return searchUserInfosAfter(query, cursor, pageable.getPageSize(), request).map(response -> withQueryCost(response, cost));
+        }
         LOG.debug("REST request to search for a page of UserInfos for query {}", query);
         return userInfoService
-            .searchCount()
-            .map(total -> new PageImpl<>(new ArrayList<>(), pageable, total))
+            .search(query, pageable)
             .map(page ->
-                PaginationUtil.generatePaginationHttpHeaders(
-                    ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
-                    page
-                )
-            )
-            .map(headers -> ResponseEntity.ok().headers(headers).body(userInfoService.search(query, pageable)));
+                ResponseEntity.ok()
+                    .headers(
+                        PaginationUtil.generatePaginationHttpHeaders(
+                            ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                            page
+                        )
+                    )
+                    .header(QUERY_COST_HEADER, String.valueOf(cost.getScore()))
+                    .body(page.getContent())
+            );
+    }
+
+    /**
+     * {@code GET  /user-infos/_suggest?prefix=:prefix} : suggest userInfos whose firstname, lastname or alias
+     * starts with the prefix, for search-as-you-type.
+     *
+     * @param prefix the prefix typed so far.
+     * @param size the maximum number of suggestions, at most 20.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the suggestions in body, with the id and
+     * display fields only.
+     */
+    @GetMapping("/_suggest")
+    public Mono<ResponseEntity<List<UserInfoSuggestion>>> suggestUserInfos(
+        @RequestParam("prefix") String prefix,
+        @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        LOG.debug("REST request to suggest UserInfos for prefix {}", prefix);
+        if (prefix.isBlank()) {
+            return Mono.just(ResponseEntity.ok().body(List.of()));
+        }
+        return userInfoService
+            .suggest(prefix, Math.max(1, Math.min(size, SUGGEST_MAX_SIZE)))
+            .collectList()
+            .map(suggestions -> ResponseEntity.ok().body(suggestions));
+    }
+
+    /**
+     * {@code GET  /user-infos/_filter} : search for the userInfos matching typed filters, and an optional free-text query.
+     * <p>
+     * Filters on gender, country, city and on creation and update date ranges ({@code from} inclusive, {@code to}
+     * exclusive) are not scored, and are cached by Elasticsearch; only the free-text {@code query} is scored. The
+     * free-text query is checked and its cost returned as for {@code _search}.
+     *
+     * @param filter the filters, and the optional free-text query.
+     * @param pageable the pagination information.
+     * @param request a {@link ServerHttpRequest} request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userInfos in body.
+     */
+    @GetMapping("/_filter")
+    public Mono<ResponseEntity<List<UserInfo>>> filterUserInfos(
+        @org.springdoc.core.annotations.ParameterObject UserInfoSearchFilter filter,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        ServerHttpRequest request
+    ) {
+        LOG.debug("REST request to search for a page of UserInfos for filter {}", filter);
+        QueryStringCost cost = analyzeQuery(filter.getQuery());
+        return userInfoService
+            .search(filter, pageable)
+            .map(page ->
+                ResponseEntity.ok()
+                    .headers(
+                        PaginationUtil.generatePaginationHttpHeaders(
+                            ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders()),
+                            page
+                        )
+                    )
+                    .header(QUERY_COST_HEADER, String.valueOf(cost.getScore()))
+                    .body(page.getContent())
+            );
+    }
+
+    private QueryStringCost analyzeQuery(String query) {
+        try {
+            return userInfoService.analyzeQuery(query);
+        } catch (QueryTooExpensiveException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "queryrejected");
+        }
+    }
+
+    private static <T> ResponseEntity<T> withQueryCost(ResponseEntity<T> response, QueryStringCost cost) {
+        return ResponseEntity.status(response.getStatusCode())
+            .headers(response.getHeaders())
+            .header(QUERY_COST_HEADER, String.valueOf(cost.getScore()))
+            .body(response.getBody());
+    }
+
+    private Mono<ResponseEntity<List<UserInfo>>> searchUserInfosAfter(String query, String cursor, int pageSize, ServerHttpRequest request) {
+        LOG.debug("REST request to search for UserInfos for query {} after cursor {}", query, cursor);
+        SearchCursor after;
+        try {
+            after = cursor.isEmpty() ? null : SearchCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        // one extra hit is fetched to know whether there is a next page
+        return userInfoService
+            .searchAfter(query, after, pageSize + 1)
+            .flatMap(hits -> {
+                // the point in time id may change from one request to the next, and is returned with every response
+                String pointInTimeId = hits.getPointInTimeId();
+                List<SearchHit<UserInfo>> searchHits = hits.getSearchHits();
+                if (searchHits.size() <= pageSize) {
+                    // last page: the point in time is already closed
+                    List<UserInfo> page = searchHits.stream().map(SearchHit::getContent).toList();
+                    return Mono.just(ResponseEntity.ok().body(page));
+                }
+                List<UserInfo> page = searchHits.subList(0, pageSize).stream().map(SearchHit::getContent).toList();
+                String nextCursor = SearchCursor.of(pointInTimeId, searchHits.get(pageSize - 1).getSortValues()).encode();
+                String nextUri = ForwardedHeaderUtils.adaptFromForwardedHeaders(request.getURI(), request.getHeaders())
+                    .replaceQueryParam("cursor", nextCursor)
+                    .replaceQueryParam("page")
+                    .toUriString();
+                HttpHeaders headers = new HttpHeaders();
+                headers.add(NEXT_CURSOR_HEADER, nextCursor);
+                headers.add(HttpHeaders.LINK, "<" + nextUri + ">; rel=\"next\"");
+                return Mono.just(ResponseEntity.ok().headers(headers).body(page));
+            });
     }
 }
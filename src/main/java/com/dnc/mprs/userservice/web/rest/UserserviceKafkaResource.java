@@ -1,10 +1,17 @@
 package com.dnc.mprs.userservice.web.rest;
 
+import com.dnc.mprs.userservice.broker.KafkaBatchPublisher;
 import com.dnc.mprs.userservice.broker.KafkaConsumer;
+import com.dnc.mprs.userservice.broker.PublishItem;
+import com.dnc.mprs.userservice.broker.PublishItemResult;
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import java.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -15,13 +22,24 @@ public class UserserviceKafkaResource {
 
     private static final String PRODUCER_BINDING_NAME = "binding-out-0";
 
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
     private static final Logger LOG = LoggerFactory.getLogger(UserserviceKafkaResource.class);
     private final KafkaConsumer kafkaConsumer;
     private final StreamBridge streamBridge;
+    private final KafkaBatchPublisher kafkaBatchPublisher;
+    private final Duration heartbeatInterval;
 
-    public UserserviceKafkaResource(StreamBridge streamBridge, KafkaConsumer kafkaConsumer) {
+    public UserserviceKafkaResource(
+        StreamBridge streamBridge,
+        KafkaConsumer kafkaConsumer,
+        KafkaBatchPublisher kafkaBatchPublisher,
+        ApplicationProperties applicationProperties
+    ) {
         this.streamBridge = streamBridge;
         this.kafkaConsumer = kafkaConsumer;
+        this.kafkaBatchPublisher = kafkaBatchPublisher;
+        this.heartbeatInterval = Duration.ofSeconds(applicationProperties.getBroker().getConsume().getHeartbeatIntervalSeconds());
     }
 
     @PostMapping("/publish")
@@ -31,9 +49,58 @@ public class UserserviceKafkaResource {
         return Mono.just(ResponseEntity.noContent().build());
     }
 
-    @GetMapping("/consume")
-    public Flux<String> consume() {
-        LOG.debug("REST request to consume records from Kafka topics");
-        return this.kafkaConsumer.getFlux();
+    /**
+     * {@code POST  /publish/_batch} : publish messages to the Kafka topic, and get their acknowledgements.
+     * <p>
+     * The body is either a JSON array or newline delimited JSON of messages, each with a value and an optional key.
+     * Messages are sent as they arrive, and their results are streamed back once acknowledged by the broker, with the
+     * partition and offset where they are stored.
+     *
+     * @param items the messages to publish.
+     * @return the {@link Flux} of the results of each message, as newline delimited JSON, in the order of the messages.
+     */
+    @PostMapping(
+        value = "/publish/_batch",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public Flux<PublishItemResult> publishBatch(@RequestBody Flux<PublishItem> items) {
+        LOG.debug("REST request to publish a batch of messages to Kafka topic");
+        return kafkaBatchPublisher.publish(PRODUCER_BINDING_NAME, items);
+    }
+
+    /**
+     * {@code GET  /consume} : stream the records consumed from the Kafka topics, as server-sent events.
+     * <p>
+     * Every event has an id. A client reconnecting with the {@code Last-Event-ID} header gets the events it missed
+     * first, as long as they are still kept in memory. Heartbeat comments are sent periodically, so that idle
+     * connections are not closed by proxies.
+     *
+     * @param lastEventId the id of the last event received, when reconnecting.
+     * @return the events.
+     */
+    @GetMapping(value = "/consume", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> consume(@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        LOG.debug("REST request to consume records from Kafka topics after event {}", lastEventId);
+        Flux<ServerSentEvent<String>> events = kafkaConsumer
+            .getFlux(parseEventId(lastEventId))
+            .map(message -> ServerSentEvent.builder(message.getPayload()).id(String.valueOf(message.getId())).build());
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(heartbeatInterval).map(tick ->
+            ServerSentEvent.<String>builder().comment("heartbeat").build()
+        );
+        // heartbeats stop with the events, when a slow client is disconnected
+        return events.publish(shared -> Flux.merge(shared, heartbeats.takeUntilOther(shared.then())));
+    }
+
+    private static Long parseEventId(String eventId) {
+        if (eventId == null || eventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(eventId.strip());
+        } catch (NumberFormatException e) {
+            LOG.debug("Ignoring the invalid {} {}", LAST_EVENT_ID_HEADER, eventId);
+            return null;
+        }
     }
 }
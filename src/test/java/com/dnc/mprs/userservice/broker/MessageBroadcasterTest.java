@@ -0,0 +1,124 @@
+package com.dnc.mprs.userservice.broker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties.Broker.Consume.OverflowPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+/**
+ * Test class for the {@link MessageBroadcaster}.
+ */
+class MessageBroadcasterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testBroadcastToAllSubscribers() {
+        MessageBroadcaster<String> broadcaster = new MessageBroadcaster<>("test", 4, 10, OverflowPolicy.DROP_OLDEST, meterRegistry);
+        broadcaster.publish("before");
+        RecordingSubscriber first = broadcaster.subscribe(null).subscribeWith(new RecordingSubscriber(Long.MAX_VALUE));
+        RecordingSubscriber second = broadcaster.subscribe(null).subscribeWith(new RecordingSubscriber(Long.MAX_VALUE));
+
+        broadcaster.publish("a");
+        broadcaster.publish("b");
+
+        assertThat(first.received).containsExactly("a", "b");
+        assertThat(second.received).containsExactly("a", "b");
+        assertThat(meterRegistry.get("test.subscribers").gauge().value()).isEqualTo(2);
+
+        first.dispose();
+        assertThat(meterRegistry.get("test.subscribers").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void testDropOldest() {
+        MessageBroadcaster<String> broadcaster = new MessageBroadcaster<>("test", 2, 10, OverflowPolicy.DROP_OLDEST, meterRegistry);
+        RecordingSubscriber slow = broadcaster.subscribe(null).subscribeWith(new RecordingSubscriber(0));
+        RecordingSubscriber fast = broadcaster.subscribe(null).subscribeWith(new RecordingSubscriber(Long.MAX_VALUE));
+
+        List.of("a", "b", "c", "d").forEach(broadcaster::publish);
+        assertThat(broadcaster.getLag()).isEqualTo(2);
+        slow.request(10);
+
+        assertThat(slow.received).containsExactly("c", "d");
+        assertThat(fast.received).containsExactly("a", "b", "c", "d");
+        assertThat(meterRegistry.get("test.dropped").counter().count()).isEqualTo(2);
+        assertThat(broadcaster.getLag()).isZero();
+    }
+
+    @Test
+    void testDropLatest() {
+        MessageBroadcaster<String> broadcaster = new MessageBroadcaster<>("test", 2, 10, OverflowPolicy.DROP_LATEST, meterRegistry);
+        RecordingSubscriber slow = broadcaster.subscribe(null).subscribeWith(new RecordingSubscriber(0));
+
+        List.of("a", "b", "c", "d").forEach(broadcaster::publish);
+        slow.request(10);
+
+        assertThat(slow.received).containsExactly("a", "b");
+        assertThat(meterRegistry.get("test.dropped").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testDisconnect() {
+        MessageBroadcaster<String> broadcaster = new MessageBroadcaster<>("test", 1, 10, OverflowPolicy.DISCONNECT, meterRegistry);
+        RecordingSubscriber slow = broadcaster.subscribe(null).subscribeWith(new RecordingSubscriber(0));
+
+        List.of("a", "b").forEach(broadcaster::publish);
+
+        assertThat(slow.completed).isTrue();
+        assertThat(meterRegistry.get("test.disconnected").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("test.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    void testReplayAfterLastEventId() {
+        MessageBroadcaster<String> broadcaster = new MessageBroadcaster<>("test", 4, 3, OverflowPolicy.DROP_OLDEST, meterRegistry);
+        List.of("a", "b", "c", "d").forEach(broadcaster::publish);
+
+        RecordingSubscriber resumed = broadcaster.subscribe(2L).subscribeWith(new RecordingSubscriber(Long.MAX_VALUE));
+        RecordingSubscriber tooOld = broadcaster.subscribe(0L).subscribeWith(new RecordingSubscriber(Long.MAX_VALUE));
+        RecordingSubscriber unknown = broadcaster.subscribe(99L).subscribeWith(new RecordingSubscriber(Long.MAX_VALUE));
+        assertThat(broadcaster.publish("e")).isEqualTo(5);
+
+        assertThat(resumed.received).containsExactly("c", "d", "e");
+        // only the last 3 messages are kept
+        assertThat(tooOld.received).containsExactly("b", "c", "d", "e");
+        assertThat(unknown.received).containsExactly("e");
+    }
+
+    private static final class RecordingSubscriber extends BaseSubscriber<BroadcastMessage<String>> {
+
+        private final List<String> received = new CopyOnWriteArrayList<>();
+
+        private final long initialRequest;
+
+        private volatile boolean completed;
+
+        private RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(BroadcastMessage<String> value) {
+            received.add(value.getPayload());
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+    }
+}
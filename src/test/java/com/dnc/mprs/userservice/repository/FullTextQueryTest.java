@@ -0,0 +1,54 @@
+package com.dnc.mprs.userservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link FullTextQuery} utility class.
+ */
+class FullTextQueryTest {
+
+    @Test
+    void testWordsAndOperators() {
+        assertThat(booleanMode("firstname:john AND (city:paris OR lastname:doe~1^2)", 16)).isEqualTo("john paris doe");
+    }
+
+    @Test
+    void testNegationsAndPrefixes() {
+        assertThat(booleanMode("jo* NOT smith -alias:bob !doe", 16)).isEqualTo("jo* -smith -bob -doe");
+    }
+
+    @Test
+    void testPunctuationAndRanges() {
+        assertThat(booleanMode("email:john.doe@example.com createdAt:[2024-01-01 TO *]", 16)).isEqualTo(
+            "john doe example com"
+        );
+        assertThat(booleanMode("\"john doe\"~2", 16)).isEqualTo("john doe");
+    }
+
+    @Test
+    void testNoWordToMatch() {
+        assertThat(FullTextQuery.of("*", 16).getBooleanMode()).isEmpty();
+        assertThat(FullTextQuery.of("*", 16).getExclusions()).isEmpty();
+        assertThat(FullTextQuery.of(null, 16).getBooleanMode()).isEmpty();
+        assertThat(FullTextQuery.of(null, 16).getExclusions()).isEmpty();
+    }
+
+    @Test
+    void testNegationsOnly() {
+        FullTextQuery query = FullTextQuery.of("-smith NOT status:deleted !jo*", 16);
+        assertThat(query.getBooleanMode()).isEmpty();
+        assertThat(query.getExclusions()).isEqualTo("smith deleted jo*");
+        assertThat(FullTextQuery.of("john -smith", 16).getExclusions()).isEmpty();
+    }
+
+    @Test
+    void testMaxWords() {
+        assertThat(booleanMode("a b c d", 2)).isEqualTo("a b");
+    }
+
+    private static String booleanMode(String queryString, int maxWords) {
+        return FullTextQuery.of(queryString, maxWords).getBooleanMode();
+    }
+}
@@ -0,0 +1,39 @@
+package com.dnc.mprs.userservice.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Test class for the {@link KeysetCursor} utility class.
+ */
+class KeysetCursorTest {
+
+    @Test
+    void testEncodeDecode() {
+        KeysetCursor cursor = new KeysetCursor("lastname", Sort.Direction.DESC, 42L, "Kim:Lee");
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertThat(decoded.getProperty()).isEqualTo("lastname");
+        assertThat(decoded.getDirection()).isEqualTo(Sort.Direction.DESC);
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThat(decoded.getValue()).isEqualTo("Kim:Lee");
+        assertThat(decoded.getOrder()).isEqualTo(Sort.Order.desc("lastname"));
+    }
+
+    @Test
+    void testEncodedTokenIsUrlSafe() {
+        String token = new KeysetCursor("createdAt", Sort.Direction.ASC, 1L, "2024-12-23T10:33:20Z?&=/+").encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void testDecodeMalformedToken() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a token")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("aWQ6QVND")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,55 @@
+package com.dnc.mprs.userservice.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link QueryStringAnalyzer} utility class.
+ */
+class QueryStringAnalyzerTest {
+
+    private final QueryStringAnalyzer analyzer = new QueryStringAnalyzer(20, 4, 1);
+
+    @Test
+    void testTermsAndOperators() {
+        QueryStringCost cost = analyzer.analyze("firstname:john AND (city:paris OR country:france)");
+
+        assertThat(cost.getScore()).isEqualTo(3);
+        assertThat(cost.getClauses()).isEqualTo(3);
+        assertThat(cost.getQuery()).isEqualTo("firstname:john AND (city:paris OR country:france)");
+    }
+
+    @Test
+    void testPhrasesRangesAndPrefixes() {
+        QueryStringCost cost = analyzer.analyze("\"john doe\"~2 createdAt:[2024-01-01 TO *] jo*");
+
+        assertThat(cost.getScore()).isEqualTo(
+            QueryStringAnalyzer.PHRASE_COST + 2 + QueryStringAnalyzer.RANGE_COST + QueryStringAnalyzer.PREFIX_COST
+        );
+        assertThat(cost.getClauses()).isEqualTo(3);
+    }
+
+    @Test
+    void testFuzzyEditsAreRewritten() {
+        QueryStringCost cost = analyzer.analyze("firstname:jhon~ lastname:doe~2^3");
+
+        assertThat(cost.getQuery()).isEqualTo("firstname:jhon~1 lastname:doe~1^3");
+        assertThat(cost.getScore()).isEqualTo(2 * QueryStringAnalyzer.FUZZY_COST);
+    }
+
+    @Test
+    void testEscapedCharactersAreTerms() {
+        assertThat(analyzer.analyze("email:john\\*doe\\/x").getScore()).isEqualTo(QueryStringAnalyzer.TERM_COST);
+        assertThat(analyzer.analyze("*").getScore()).isEqualTo(QueryStringAnalyzer.TERM_COST);
+    }
+
+    @Test
+    void testRejectedQueries() {
+        assertThatThrownBy(() -> analyzer.analyze("firstname:*ohn")).isInstanceOf(QueryTooExpensiveException.class);
+        assertThatThrownBy(() -> analyzer.analyze("firstname:/jo.*/")).isInstanceOf(QueryTooExpensiveException.class);
+        assertThatThrownBy(() -> analyzer.analyze("a OR b OR c OR d OR e")).isInstanceOf(QueryTooExpensiveException.class);
+        assertThatThrownBy(() -> analyzer.analyze("j?hn d*e s?th")).isInstanceOf(QueryTooExpensiveException.class);
+    }
+}
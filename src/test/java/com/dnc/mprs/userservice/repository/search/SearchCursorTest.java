@@ -0,0 +1,46 @@
+package com.dnc.mprs.userservice.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SearchCursor} utility class.
+ */
+class SearchCursorTest {
+
+    @Test
+    void testEncodeDecode() {
+        SearchCursor cursor = new SearchCursor("46ToAwMDaWR5BXV1aWQy:KQEAAAA=", 1.25, 42L);
+
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+
+        assertThat(decoded.getPointInTimeId()).isEqualTo("46ToAwMDaWR5BXV1aWQy:KQEAAAA=");
+        assertThat(decoded.getScore()).isEqualTo(1.25);
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThat(decoded.getSearchAfter()).containsExactly(1.25, 42L);
+    }
+
+    @Test
+    void testOfSortValues() {
+        SearchCursor cursor = SearchCursor.of("pit", List.of(0.5f, 7));
+
+        assertThat(cursor.getScore()).isEqualTo(0.5);
+        assertThat(cursor.getId()).isEqualTo(7L);
+    }
+
+    @Test
+    void testEncodedTokenIsUrlSafe() {
+        String token = new SearchCursor("a+b/c==", Double.NaN, 1L).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void testDecodeMalformedToken() {
+        assertThatThrownBy(() -> SearchCursor.decode("not a token")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SearchCursor.decode("MS4wOjI")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
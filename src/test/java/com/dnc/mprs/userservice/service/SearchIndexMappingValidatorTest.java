@@ -0,0 +1,60 @@
+package com.dnc.mprs.userservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SearchIndexMappingValidator} utility class.
+ */
+class SearchIndexMappingValidatorTest {
+
+    private static final Map<String, Object> EXPECTED = Map.of(
+        "dynamic",
+        false,
+        "properties",
+        Map.of(
+            "id",
+            Map.of("type", "long"),
+            "city",
+            Map.of("type", "text", "norms", false, "fields", Map.of("keyword", Map.of("type", "keyword", "ignore_above", 256)))
+        )
+    );
+
+    @Test
+    void testMatchingMapping() {
+        Map<String, Object> actual = Map.of(
+            "dynamic",
+            "false",
+            "properties",
+            Map.of(
+                "id",
+                Map.of("type", "long"),
+                "city",
+                Map.of("type", "text", "norms", false, "fields", Map.of("keyword", Map.of("type", "keyword", "ignore_above", 256))),
+                "extra",
+                Map.of("type", "keyword")
+            )
+        );
+
+        assertThat(SearchIndexMappingValidator.validate(EXPECTED, actual)).isEmpty();
+    }
+
+    @Test
+    void testDifferences() {
+        Map<String, Object> actual = Map.of(
+            "dynamic",
+            "true",
+            "properties",
+            Map.of("id", Map.of("type", "keyword"), "city", Map.of("type", "text"))
+        );
+
+        assertThat(SearchIndexMappingValidator.validate(EXPECTED, actual)).containsExactlyInAnyOrder(
+            "dynamic: expected false but was true",
+            "id type: expected long but was keyword",
+            "city norms: expected false but was null",
+            "city.keyword is missing"
+        );
+    }
+}
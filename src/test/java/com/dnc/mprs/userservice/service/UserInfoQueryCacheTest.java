@@ -0,0 +1,97 @@
+package com.dnc.mprs.userservice.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.dnc.mprs.userservice.config.ApplicationProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Mono;
+
+/**
+ * Test class for the {@link UserInfoQueryCache}.
+ */
+class UserInfoQueryCacheTest {
+
+    private UserInfoQueryCache queryCache;
+
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        queryCache = new UserInfoQueryCache(Caffeine.newBuilder().buildAsync(), new ApplicationProperties());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void testNormalizedQueryIsServedFromCache() {
+        assertThat(search("  Seoul   city ", 0).block()).isEqualTo("result 1");
+        assertThat(search("Seoul city", 0).block()).isEqualTo("result 1");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testPagesAreCachedSeparately() {
+        search("Seoul", 0).block();
+        search("Seoul", 1).block();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testInvalidateMakesResultsStale() {
+        search("Seoul", 0).block();
+        long generation = queryCache.getWriteGeneration();
+
+        queryCache.invalidate();
+
+        assertThat(queryCache.getWriteGeneration()).isEqualTo(generation + 1);
+        assertThat(search("Seoul", 0).block()).isEqualTo("result 2");
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        Mono<String> failed = queryCache.get("search", "Seoul", PageRequest.of(0, 20, Sort.by("id")), () ->
+            Mono.fromSupplier(() -> {
+                loads.incrementAndGet();
+                throw new IllegalStateException("search index unavailable");
+            })
+        );
+        assertThatThrownBy(failed::block).hasMessageContaining("search index unavailable");
+
+        assertThat(search("Seoul", 0).block()).isEqualTo("result 2");
+        assertThat(search("Seoul", 0).block()).isEqualTo("result 2");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testEmptyLoadIsNotCached() {
+        Mono<String> empty = queryCache.get("search", "Seoul", PageRequest.of(0, 20, Sort.by("id")), () ->
+            Mono.<String>empty().doOnSubscribe(subscription -> loads.incrementAndGet())
+        );
+        assertThat(empty.block()).isNull();
+
+        assertThat(search("Seoul", 0).block()).isEqualTo("result 2");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testDisabledCacheAlwaysLoads() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getCache().getQuery().setEnabled(false);
+        queryCache = new UserInfoQueryCache(Caffeine.newBuilder().buildAsync(), properties);
+
+        search("Seoul", 0).block();
+        search("Seoul", 0).block();
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Mono<String> search(String query, int page) {
+        return queryCache.get("search", query, PageRequest.of(page, 20, Sort.by("id")), () ->
+            Mono.fromSupplier(() -> "result " + loads.incrementAndGet())
+        );
+    }
+}
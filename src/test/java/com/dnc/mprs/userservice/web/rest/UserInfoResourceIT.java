@@ -10,28 +10,54 @@ import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
 
 import com.dnc.mprs.userservice.IntegrationTest;
+import com.dnc.mprs.userservice.config.ApplicationProperties;
 import com.dnc.mprs.userservice.domain.UserInfo;
 import com.dnc.mprs.userservice.domain.enumeration.GenderType;
 import com.dnc.mprs.userservice.repository.EntityManager;
 import com.dnc.mprs.userservice.repository.UserInfoRepository;
 import com.dnc.mprs.userservice.repository.search.UserInfoSearchRepository;
+import com.dnc.mprs.userservice.service.UserInfoBulkIndexer;
+import com.dnc.mprs.userservice.service.UserInfoChangePublisher;
+import com.dnc.mprs.userservice.service.UserInfoIndexReconciler;
+import com.dnc.mprs.userservice.service.UserInfoReindexService;
+import com.dnc.mprs.userservice.service.UserInfoSearchIndexManager;
+import com.dnc.mprs.userservice.service.UserInfoService;
+import com.dnc.mprs.userservice.service.UserInfoUpdateIngester;
+import com.dnc.mprs.userservice.service.dto.UserInfoBulkItemResult;
+import com.dnc.mprs.userservice.service.dto.UserInfoBulkItemResult.Status;
+import com.dnc.mprs.userservice.service.dto.UserInfoReindexStatus;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.assertj.core.util.IterableUtil;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
 import org.springframework.data.util.Streamable;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
 
 /**
  * Integration tests for the {@link UserInfoResource} REST controller.
@@ -96,6 +122,36 @@ class UserInfoResourceIT {
     @Autowired
     private UserInfoSearchRepository userInfoSearchRepository;
 
+    @Autowired
+    private UserInfoIndexReconciler userInfoIndexReconciler;
+
+    @Autowired
+    private UserInfoService userInfoService;
+
+    @Autowired
+    private UserInfoChangePublisher userInfoChangePublisher;
+
+    @Autowired
+    private UserInfoUpdateIngester userInfoUpdateIngester;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private UserInfoSearchIndexManager userInfoSearchIndexManager;
+
+    @Autowired
+    private UserInfoBulkIndexer userInfoBulkIndexer;
+
+    @Autowired
+    private UserInfoReindexService userInfoReindexService;
+
+    @Autowired
+    private ReactiveElasticsearchTemplate reactiveElasticsearchTemplate;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String kafkaBootstrapServers;
+
     @Autowired
     private EntityManager em;
 
@@ -449,6 +505,175 @@ class UserInfoResourceIT {
             .value(hasItem(DEFAULT_UPDATED_AT.toString()));
     }
 
+    @Test
+    void getAllUserInfosWithoutCount() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?sort=id,desc&count=false")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .doesNotExist("X-Total-Count")
+            .expectHeader()
+            .valueMatches("Link", ".*rel=\"first\".*")
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(userInfo.getId().intValue()));
+    }
+
+    @Test
+    void countUserInfosWithCachedStrategy() {
+        ApplicationProperties.Pagination pagination = applicationProperties.getPagination();
+        ApplicationProperties.Pagination.CountStrategy countStrategy = pagination.getCountStrategy();
+        pagination.setCountStrategy(ApplicationProperties.Pagination.CountStrategy.CACHED);
+        try {
+            // A write through the service evicts the cached count
+            insertedUserInfo = userInfoService.save(userInfo).block();
+            long count = userInfoService.countAll().block();
+            assertThat(count).isEqualTo(getRepositoryCount());
+
+            // A write behind the back of the service is not seen until the count is evicted
+            UserInfo other = userInfoRepository.save(createUpdatedEntity()).block();
+            assertThat(userInfoService.countAll().block()).isEqualTo(count);
+
+            userInfoService.save(createEntity().userId("CCCCCCCCCC")).block();
+            assertThat(userInfoService.countAll().block()).isEqualTo(count + 2);
+
+            userInfoService.delete(other.getId()).block();
+            assertThat(userInfoService.countAll().block()).isEqualTo(count + 1);
+        } finally {
+            pagination.setCountStrategy(countStrategy);
+        }
+    }
+
+    @Test
+    void countUserInfosWithEstimatedStrategy() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        ApplicationProperties.Pagination pagination = applicationProperties.getPagination();
+        ApplicationProperties.Pagination.CountStrategy countStrategy = pagination.getCountStrategy();
+        long estimatedCountThreshold = pagination.getEstimatedCountThreshold();
+        pagination.setCountStrategy(ApplicationProperties.Pagination.CountStrategy.ESTIMATED);
+        try {
+            // Under the threshold, the count is exact
+            pagination.setEstimatedCountThreshold(Long.MAX_VALUE);
+            assertThat(userInfoService.countAll().block()).isEqualTo(getRepositoryCount());
+
+            // From the threshold on, the count is the estimate of the table statistics
+            pagination.setEstimatedCountThreshold(0);
+            assertThat(userInfoService.countAll().block()).isEqualTo(userInfoRepository.estimateCount().block());
+        } finally {
+            pagination.setCountStrategy(countStrategy);
+            pagination.setEstimatedCountThreshold(estimatedCountThreshold);
+        }
+    }
+
+    @Test
+    void getAllUserInfosWithKeysetPagination() {
+        // Initialize the database
+        UserInfo first = userInfoRepository.save(createEntity()).block();
+        UserInfo second = userInfoRepository.save(createUpdatedEntity()).block();
+
+        // Walk all the pages, one row at a time
+        List<Long> seenIds = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            var result = webTestClient
+                .get()
+                .uri(ENTITY_API_URL + "?size=1&sort=id,asc&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(UserInfo.class)
+                .returnResult();
+            List<UserInfo> page = result.getResponseBody();
+            assertThat(page).hasSizeLessThanOrEqualTo(1);
+            page.forEach(u -> seenIds.add(u.getId()));
+            cursor = result.getResponseHeaders().getFirst("X-Next-Cursor");
+        }
+
+        assertThat(seenIds).contains(first.getId(), second.getId()).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void getAllUserInfosWithInvalidCursor() {
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "?cursor=invalid!cursor")
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    void exportUserInfos() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        List<UserInfo> exported = webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_export")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(UserInfo.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(exported).extracting(UserInfo::getId).contains(userInfo.getId()).isSorted();
+    }
+
+    @Test
+    void bulkUpsertUserInfos() throws Exception {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+        long databaseSizeBefore = getRepositoryCount();
+
+        UserInfo updatedUserInfo = createUpdatedEntity().userId(DEFAULT_USER_ID);
+        UserInfo newUserInfo = createUpdatedEntity();
+        UserInfo invalidUserInfo = new UserInfo().userId("invalid");
+
+        List<UserInfoBulkItemResult> results = webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/_bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(om.writeValueAsBytes(List.of(updatedUserInfo, newUserInfo, invalidUserInfo)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(UserInfoBulkItemResult.class)
+            .getResponseBody()
+            .collectList()
+            .block();
+
+        assertThat(results).extracting(UserInfoBulkItemResult::getIndex).containsExactly(0L, 1L, 2L);
+        assertThat(results)
+            .extracting(UserInfoBulkItemResult::getStatus)
+            .containsExactly(Status.UPDATED, Status.CREATED, Status.INVALID);
+        assertThat(results.get(0).getId()).isEqualTo(userInfo.getId());
+        assertThat(results.get(1).getId()).isNotNull();
+        assertThat(results.get(2).getErrors()).isNotEmpty();
+
+        assertThat(getRepositoryCount()).isEqualTo(databaseSizeBefore + 1);
+        UserInfo persistedUserInfo = userInfoRepository.findById(userInfo.getId()).block();
+        assertThat(persistedUserInfo.getFirstname()).isEqualTo(UPDATED_FIRSTNAME);
+        assertThat(persistedUserInfo.getCreatedAt()).isEqualTo(userInfo.getCreatedAt());
+        assertThat(userInfoRepository.findOneByUserId(UPDATED_USER_ID).block()).isNotNull();
+    }
+
     @Test
     void getUserInfo() {
         // Initialize the database
@@ -495,6 +720,104 @@ class UserInfoResourceIT {
             .value(is(DEFAULT_UPDATED_AT.toString()));
     }
 
+    @Test
+    void getUserInfoIsNotStaleAfterPatch() throws Exception {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        // Warm up the cache
+        webTestClient.get().uri(ENTITY_API_URL_ID, userInfo.getId()).exchange().expectStatus().isOk();
+
+        UserInfo partialUpdatedUserInfo = new UserInfo();
+        partialUpdatedUserInfo.setId(userInfo.getId());
+        partialUpdatedUserInfo.firstname(UPDATED_FIRSTNAME);
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, partialUpdatedUserInfo.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(om.writeValueAsBytes(partialUpdatedUserInfo))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // The cached entry must have been evicted by the update
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL_ID, userInfo.getId())
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.firstname")
+            .value(is(UPDATED_FIRSTNAME));
+    }
+
+    @Test
+    void getUserInfosByIds() throws Exception {
+        // Initialize the database
+        UserInfo first = userInfoRepository.save(createEntity()).block();
+        UserInfo second = userInfoRepository.save(createUpdatedEntity()).block();
+
+        List<UserInfo> userInfos = webTestClient
+            .post()
+            .uri(ENTITY_API_URL + "/_mget")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(om.writeValueAsBytes(List.of(second.getId(), Long.MAX_VALUE, first.getId())))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(UserInfo.class)
+            .returnResult()
+            .getResponseBody();
+
+        // Missing ids are skipped, and the order of the ids is preserved
+        assertThat(userInfos).extracting(UserInfo::getId).containsExactly(second.getId(), first.getId());
+    }
+
+    @Test
+    void getUserInfoByUserId() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_by-user-id?userId={userId}", DEFAULT_USER_ID)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.id")
+            .value(is(userInfo.getId().intValue()));
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_by-user-id?userId={userId}", UPDATED_USER_ID)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
+    @Test
+    void getUserInfosByEmail() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_by-email?email={email}", DEFAULT_EMAIL)
+            .accept(MediaType.APPLICATION_JSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(userInfo.getId().intValue()));
+    }
+
     @Test
     void getNonExistingUserInfo() {
         // Get the userInfo
@@ -660,6 +983,117 @@ class UserInfoResourceIT {
         assertUserInfoUpdatableFieldsEquals(createUpdateProxyForBean(partialUpdatedUserInfo, userInfo), getPersistedUserInfo(userInfo));
     }
 
+    @Test
+    void partialUpdateUserInfoWithPatchAndMinimalReturn() throws Exception {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        long databaseSizeBeforeUpdate = getRepositoryCount();
+
+        // Update the userInfo using partial update, without reading it back
+        UserInfo partialUpdatedUserInfo = new UserInfo();
+        partialUpdatedUserInfo.setId(userInfo.getId());
+
+        partialUpdatedUserInfo.firstname(UPDATED_FIRSTNAME).city(UPDATED_CITY);
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, partialUpdatedUserInfo.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .header("Prefer", "return=minimal")
+            .bodyValue(om.writeValueAsBytes(partialUpdatedUserInfo))
+            .exchange()
+            .expectStatus()
+            .isNoContent()
+            .expectHeader()
+            .valueEquals("Preference-Applied", "return=minimal")
+            .expectBody()
+            .isEmpty();
+
+        // Validate the UserInfo in the database
+        assertSameRepositoryCount(databaseSizeBeforeUpdate);
+        assertUserInfoUpdatableFieldsEquals(createUpdateProxyForBean(partialUpdatedUserInfo, userInfo), getPersistedUserInfo(userInfo));
+    }
+
+    @Test
+    void partialUpdateUserInfoIsIndexed() throws Exception {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        UserInfo partialUpdatedUserInfo = new UserInfo();
+        partialUpdatedUserInfo.setId(userInfo.getId());
+        partialUpdatedUserInfo.firstname(UPDATED_FIRSTNAME);
+
+        webTestClient
+            .patch()
+            .uri(ENTITY_API_URL_ID, partialUpdatedUserInfo.getId())
+            .contentType(MediaType.valueOf("application/merge-patch+json"))
+            .bodyValue(om.writeValueAsBytes(partialUpdatedUserInfo))
+            .exchange()
+            .expectStatus()
+            .isOk();
+
+        // The search index is refreshed asynchronously from the outbox, with the whole row
+        await()
+            .atMost(5, TimeUnit.SECONDS)
+            .untilAsserted(() -> {
+                UserInfo indexedUserInfo = userInfoSearchRepository.findById(userInfo.getId()).block();
+                assertThat(indexedUserInfo).isNotNull();
+                assertThat(indexedUserInfo.getFirstname()).isEqualTo(UPDATED_FIRSTNAME);
+                assertThat(indexedUserInfo.getLastname()).isEqualTo(userInfo.getLastname());
+            });
+    }
+
+    @Test
+    void reconcileIndexesDriftedUserInfo() {
+        // Initialize the database only: the repository does not queue the indexing
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+        assertThat(userInfoSearchRepository.findById(userInfo.getId()).block()).isNull();
+
+        assertThat(userInfoIndexReconciler.reconcile().block()).isGreaterThanOrEqualTo(1L);
+
+        await()
+            .atMost(5, TimeUnit.SECONDS)
+            .untilAsserted(() -> {
+                UserInfo indexedUserInfo = userInfoSearchRepository.findById(userInfo.getId()).block();
+                assertThat(indexedUserInfo).isNotNull();
+                assertThat(indexedUserInfo.getFirstname()).isEqualTo(userInfo.getFirstname());
+            });
+    }
+
+    @Test
+    void searchUserInfoInDatabase() {
+        // Initialize the database only: the fallback search does not use the index
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        Page<UserInfo> page = userInfoService
+            .searchDatabase("firstname:" + DEFAULT_FIRSTNAME + " AND NOT zzzzzz", PageRequest.of(0, 20))
+            .block();
+
+        assertThat(page).isNotNull();
+        assertThat(page.getContent()).extracting(UserInfo::getId).contains(userInfo.getId());
+        assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(1);
+
+        Page<UserInfo> negated = userInfoService
+            .searchDatabase(DEFAULT_FIRSTNAME + " -" + DEFAULT_ALIAS, PageRequest.of(0, 20))
+            .block();
+
+        assertThat(negated).isNotNull();
+        assertThat(negated.getContent()).extracting(UserInfo::getId).doesNotContain(userInfo.getId());
+
+        // Negated words only: every row but the ones with these words
+        UserInfo other = userInfoRepository.save(createUpdatedEntity()).block();
+        try {
+            Page<UserInfo> negatedOnly = userInfoService.searchDatabase("-" + DEFAULT_ALIAS, PageRequest.of(0, 20)).block();
+
+            assertThat(negatedOnly).isNotNull();
+            assertThat(negatedOnly.getContent()).extracting(UserInfo::getId).doesNotContain(userInfo.getId()).contains(other.getId());
+            assertThat(negatedOnly.getTotalElements()).isGreaterThanOrEqualTo(1);
+        } finally {
+            userInfoRepository.delete(other).block();
+        }
+    }
+
     @Test
     void fullUpdateUserInfoWithPatch() throws Exception {
         // Initialize the database
@@ -789,8 +1223,12 @@ class UserInfoResourceIT {
 
         // Validate the database contains one less item
         assertDecrementedRepositoryCount(databaseSizeBeforeDelete);
-        int searchDatabaseSizeAfter = IterableUtil.sizeOf(userInfoSearchRepository.findAll().collectList().block());
-        assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);
+        await()
+            .atMost(5, TimeUnit.SECONDS)
+            .untilAsserted(() -> {
+                int searchDatabaseSizeAfter = IterableUtil.sizeOf(userInfoSearchRepository.findAll().collectList().block());
+                assertThat(searchDatabaseSizeAfter).isEqualTo(searchDatabaseSizeBefore - 1);
+            });
     }
 
     @Test
@@ -808,6 +1246,10 @@ class UserInfoResourceIT {
             .isOk()
             .expectHeader()
             .contentType(MediaType.APPLICATION_JSON)
+            .expectHeader()
+            .valueEquals("X-Total-Count", "1")
+            .expectHeader()
+            .valueEquals("X-Query-Cost", "1")
             .expectBody()
             .jsonPath("$.[*].id")
             .value(hasItem(userInfo.getId().intValue()))
@@ -839,6 +1281,290 @@ class UserInfoResourceIT {
             .value(hasItem(DEFAULT_UPDATED_AT.toString()));
     }
 
+    @Test
+    void searchUserInfoWithCursor() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+        UserInfo other = userInfoRepository.save(createUpdatedEntity()).block();
+        userInfoSearchRepository.save(userInfo).block();
+        userInfoSearchRepository.save(other).block();
+
+        // Walk all the pages, one hit at a time
+        List<Long> seenIds = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            var result = webTestClient
+                .get()
+                .uri(ENTITY_SEARCH_API_URL + "?query=id:(" + userInfo.getId() + " OR " + other.getId() + ")&size=1&cursor=" + cursor)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBodyList(UserInfo.class)
+                .returnResult();
+            List<UserInfo> page = result.getResponseBody();
+            assertThat(page).hasSizeLessThanOrEqualTo(1);
+            page.forEach(u -> seenIds.add(u.getId()));
+            cursor = result.getResponseHeaders().getFirst("X-Next-Cursor");
+        }
+
+        assertThat(seenIds).containsExactlyInAnyOrder(userInfo.getId(), other.getId());
+        userInfoSearchRepository.delete(other).block();
+    }
+
+    @Test
+    void searchUserInfoWithInvalidCursor() {
+        webTestClient.get().uri(ENTITY_SEARCH_API_URL + "?query=*&cursor=invalid!cursor").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void searchUserInfoWithExpensiveQuery() {
+        webTestClient.get().uri(ENTITY_SEARCH_API_URL + "?query=firstname:*abc").exchange().expectStatus().isBadRequest();
+        webTestClient.get().uri(ENTITY_SEARCH_API_URL + "?query=firstname:/ab.*/").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void filterUserInfos() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+        UserInfo other = userInfoRepository.save(createUpdatedEntity()).block();
+        userInfoSearchRepository.save(userInfo).block();
+        userInfoSearchRepository.save(other).block();
+
+        List<UserInfo> found = webTestClient
+            .get()
+            .uri(
+                ENTITY_API_URL + "/_filter?gender={gender}&city={city}&createdFrom={createdFrom}",
+                UPDATED_GENDER,
+                UPDATED_CITY,
+                UPDATED_CREATED_AT
+            )
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .exists("X-Total-Count")
+            .expectBodyList(UserInfo.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertThat(found).extracting(UserInfo::getId).contains(other.getId()).doesNotContain(userInfo.getId());
+        userInfoSearchRepository.delete(other).block();
+    }
+
+    @Test
+    void filterUserInfosByExactCity() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo.city("Saint Denis")).block();
+        userInfoSearchRepository.save(userInfo).block();
+
+        // Neither a different case, nor a single token, nor a different token order matches
+        for (String city : List.of("saint denis", "Denis", "Denis Saint")) {
+            webTestClient
+                .get()
+                .uri(ENTITY_API_URL + "/_filter?city={city}", city)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody()
+                .jsonPath("$.[*].id")
+                .value(ids -> assertThat((List<?>) ids).doesNotContain(userInfo.getId().intValue()));
+        }
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_filter?city={city}", "Saint Denis")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(userInfo.getId().intValue()));
+    }
+
+    @Test
+    void suggestUserInfos() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+        userInfoSearchRepository.save(userInfo).block();
+
+        webTestClient
+            .get()
+            .uri(ENTITY_API_URL + "/_suggest?prefix={prefix}", DEFAULT_FIRSTNAME.substring(0, 4))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.[*].id")
+            .value(hasItem(userInfo.getId().intValue()))
+            .jsonPath("$.[*].firstname")
+            .value(hasItem(DEFAULT_FIRSTNAME))
+            .jsonPath("$.[0].email")
+            .doesNotExist();
+    }
+
+    @Test
+    void publishUserInfoChanges() {
+        UserInfo created = userInfoService.save(userInfo).block();
+        userInfoChangePublisher.drain().block();
+        userInfoService.delete(created.getId()).block();
+        userInfoChangePublisher.drain().block();
+
+        // Read the events of the userInfo from the beginning of the change topic
+        String key = String.valueOf(created.getId());
+        List<String> events = new ArrayList<>();
+        Map<String, Object> consumerProperties = Map.of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG,
+            kafkaBootstrapServers,
+            ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG,
+            false
+        );
+        try (
+            KafkaConsumer<String, String> consumer = new KafkaConsumer<>(
+                consumerProperties,
+                new StringDeserializer(),
+                new StringDeserializer()
+            )
+        ) {
+            List<TopicPartition> partitions = consumer
+                .partitionsFor(applicationProperties.getBroker().getChanges().getTopic())
+                .stream()
+                .map(partition -> new TopicPartition(partition.topic(), partition.partition()))
+                .toList();
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            await()
+                .atMost(10, TimeUnit.SECONDS)
+                .pollInSameThread()
+                .until(() -> {
+                    for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(200))) {
+                        if (key.equals(record.key())) {
+                            events.add(record.value());
+                        }
+                    }
+                    // the deletion ends with a tombstone
+                    return !events.isEmpty() && events.get(events.size() - 1) == null;
+                });
+        }
+
+        assertThat(events.get(0)).contains("\"type\":\"CREATED\"").contains(DEFAULT_FIRSTNAME);
+        assertThat(events.get(events.size() - 2)).contains("\"type\":\"DELETED\"").doesNotContain(DEFAULT_FIRSTNAME);
+    }
+
+    @Test
+    void ingestUserInfoUpdateCommands() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+        UserInfo other = userInfoRepository.save(createUpdatedEntity()).block();
+        UserInfo unchanged = userInfoRepository.save(createEntity().userId("CCCCCCCCCC")).block();
+
+        List<byte[]> commands = List.of(
+            ("{\"id\":" + userInfo.getId() + ",\"firstname\":\"first\",\"lastname\":\"last\"}").getBytes(StandardCharsets.UTF_8),
+            ("{\"id\":" + other.getId() + ",\"city\":\"Paris\"}").getBytes(StandardCharsets.UTF_8),
+            "not json".getBytes(StandardCharsets.UTF_8),
+            ("{\"id\":" + userInfo.getId() + ",\"firstname\":\"second\"}").getBytes(StandardCharsets.UTF_8),
+            ("{\"id\":" + userInfo.getId() + ",\"email\":\"not an email\"}").getBytes(StandardCharsets.UTF_8),
+            ("{\"id\":" + unchanged.getId() + "}").getBytes(StandardCharsets.UTF_8),
+            ("{\"id\":" + Long.MAX_VALUE + ",\"city\":\"Lyon\"}").getBytes(StandardCharsets.UTF_8)
+        );
+
+        // A single group, so that the command without fields is written with the others
+        ApplicationProperties.Broker.Updates updates = applicationProperties.getBroker().getUpdates();
+        int concurrency = updates.getConcurrency();
+        updates.setConcurrency(1);
+        try {
+            assertThat(userInfoUpdateIngester.ingest(commands).block()).isEqualTo(3);
+        } finally {
+            updates.setConcurrency(concurrency);
+        }
+
+        // The commands of a userInfo are applied in order, invalid ones are skipped
+        UserInfo updated = userInfoRepository.findById(userInfo.getId()).block();
+        assertThat(updated.getFirstname()).isEqualTo("second");
+        assertThat(updated.getLastname()).isEqualTo("last");
+        assertThat(updated.getEmail()).isEqualTo(DEFAULT_EMAIL);
+        assertThat(userInfoRepository.findById(other.getId()).block().getCity()).isEqualTo("Paris");
+        assertThat(userInfoRepository.findById(unchanged.getId()).block().getCity()).isEqualTo(DEFAULT_CITY);
+        userInfoRepository.delete(other).block();
+        userInfoRepository.delete(unchanged).block();
+    }
+
+    @Test
+    void dualWriteUserInfosToBuildingIndex() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        String buildingIndexName = userInfoSearchIndexManager.createBuildingIndex().block();
+        IndexCoordinates buildingIndex = IndexCoordinates.of(buildingIndexName);
+        try {
+            userInfoSearchIndexManager.awaitBuildingAliasSeen().block();
+            // The index being built is found in Elasticsearch, and receives the document updates
+            assertThat(userInfoSearchIndexManager.findBuildingAliasNames().block()).containsExactly(
+                userInfoSearchIndexManager.getBuildingAliasName()
+            );
+            assertThat(userInfoBulkIndexer.submit(userInfo.getId()).block()).isTrue();
+            assertThat(reactiveElasticsearchTemplate.exists(String.valueOf(userInfo.getId()), buildingIndex).block()).isTrue();
+        } finally {
+            userInfoSearchIndexManager.discard(buildingIndexName).block();
+        }
+
+        // A discarded index is not recreated by the updates sent before the instances see it is gone
+        userInfoBulkIndexer.submit(userInfo.getId()).block();
+        assertThat(reactiveElasticsearchTemplate.indexOps(buildingIndex).exists().block()).isFalse();
+    }
+
+    @Test
+    void discardOrphanedBuildingIndex() {
+        // An index left behind by a rebuild which did not finish
+        String buildingIndexName = userInfoSearchIndexManager.createBuildingIndex().block();
+
+        assertThat(userInfoReindexService.discard().block()).containsExactly(buildingIndexName);
+
+        assertThat(reactiveElasticsearchTemplate.indexOps(IndexCoordinates.of(buildingIndexName)).exists().block()).isFalse();
+        assertThat(userInfoSearchIndexManager.discardBuilding().block()).isEmpty();
+    }
+
+    @Test
+    void cancelRebuildDiscardsBuildingIndex() {
+        userInfoReindexService.start();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> userInfoReindexService.getStatus().getIndexName() != null);
+        String buildingIndexName = userInfoReindexService.getStatus().getIndexName();
+
+        userInfoReindexService.cancel();
+
+        assertThat(userInfoReindexService.getStatus().getState()).isEqualTo(UserInfoReindexStatus.State.FAILED);
+        assertThat(reactiveElasticsearchTemplate.indexOps(IndexCoordinates.of(buildingIndexName)).exists().block()).isFalse();
+    }
+
+    @Test
+    void rebuildSearchIndex() {
+        // Initialize the database
+        insertedUserInfo = userInfoRepository.save(userInfo).block();
+
+        userInfoReindexService.start();
+        await()
+            .atMost(30, TimeUnit.SECONDS)
+            .until(() -> userInfoReindexService.getStatus().getState() != UserInfoReindexStatus.State.RUNNING);
+
+        UserInfoReindexStatus status = userInfoReindexService.getStatus();
+        assertThat(status.getState()).isEqualTo(UserInfoReindexStatus.State.COMPLETED);
+        assertThat(status.getProcessed()).isPositive();
+
+        // The alias was swapped to the rebuilt index, which is not being built anymore
+        String aliasName = userInfoSearchIndexManager.getAliasName();
+        String buildingAliasName = userInfoSearchIndexManager.getBuildingAliasName();
+        assertThat(
+            Mono.from(reactiveElasticsearchTemplate.execute(client -> client.indices().getAlias(get -> get.name(aliasName))))
+                .block()
+                .result()
+        ).containsOnlyKeys(status.getIndexName());
+        assertThat(
+            Mono.from(
+                reactiveElasticsearchTemplate.execute(client -> client.indices().existsAlias(exists -> exists.name(buildingAliasName)))
+            ).block().value()
+        ).isFalse();
+        assertThat(userInfoSearchRepository.findById(userInfo.getId()).block()).isNotNull();
+    }
+
     protected long getRepositoryCount() {
         return userInfoRepository.count().block();
     }
@@ -4,9 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
 
 import com.dnc.mprs.userservice.IntegrationTest;
+import com.dnc.mprs.userservice.broker.PublishItem;
+import com.dnc.mprs.userservice.broker.PublishItemResult;
+import com.dnc.mprs.userservice.broker.PublishItemResult.Status;
 import com.dnc.mprs.userservice.config.EmbeddedKafka;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,13 +20,18 @@ import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWeb
 import org.springframework.cloud.stream.binder.test.InputDestination;
 import org.springframework.cloud.stream.binder.test.OutputDestination;
 import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.support.GenericMessage;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.util.MimeTypeUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 @AutoConfigureWebTestClient(timeout = IntegrationTest.DEFAULT_TIMEOUT)
 @WithMockUser
@@ -58,6 +67,31 @@ class UserserviceKafkaResourceIT {
         assertThat(output.receive(1000, "binding-out-0").getPayload()).isEqualTo("value-produce".getBytes());
     }
 
+    @Test
+    void publishesBatches() {
+        List<PublishItemResult> results = client
+            .post()
+            .uri(KAFKA_API, "publish/_batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(List.of(new PublishItem("key-1", "value-1"), new PublishItem(null, "value-2"), new PublishItem("key-3", null)))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .returnResult(PublishItemResult.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(30));
+
+        assertThat(results).extracting(PublishItemResult::getIndex).containsExactly(0L, 1L, 2L);
+        assertThat(results)
+            .extracting(PublishItemResult::getStatus)
+            .containsExactly(Status.ACKNOWLEDGED, Status.ACKNOWLEDGED, Status.INVALID);
+        assertThat(results.get(0).getPartition()).isNotNull();
+        assertThat(results.get(0).getOffset()).isNotNull();
+        assertThat(results.get(2).getError()).isNotBlank();
+    }
+
     @Test
     void producesPooledMessages() throws Exception {
         assertThat(output.receive(1500, "kafkaProducer-out-0").getPayload()).isEqualTo("kakfa_producer".getBytes());
@@ -69,19 +103,47 @@ class UserserviceKafkaResourceIT {
         map.put(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.TEXT_PLAIN_VALUE);
         MessageHeaders headers = new MessageHeaders(map);
         Message<String> testMessage = new GenericMessage<>("value-consume", headers);
-        input.send(testMessage);
-        String value = client
+        // messages are only broadcast to the current subscribers: send until the stream is subscribed
+        Disposable sender = Flux.interval(Duration.ofMillis(100), Schedulers.boundedElastic()).subscribe(tick -> input.send(testMessage));
+        try {
+            String value = client
+                .get()
+                .uri(KAFKA_API, "consume")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectHeader()
+                .contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(String.class)
+                .getResponseBody()
+                .blockFirst(Duration.ofSeconds(10));
+            assertThat(value).isEqualTo("value-consume");
+        } finally {
+            sender.dispose();
+        }
+    }
+
+    @Test
+    void replaysMessagesAfterLastEventId() {
+        Map<String, Object> map = new HashMap<>();
+        map.put(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.TEXT_PLAIN_VALUE);
+        MessageHeaders headers = new MessageHeaders(map);
+        // sent before subscribing: only a client resuming from an earlier event gets it
+        input.send(new GenericMessage<>("value-replay", headers));
+        ServerSentEvent<String> event = client
             .get()
             .uri(KAFKA_API, "consume")
             .accept(MediaType.TEXT_EVENT_STREAM)
+            .header("Last-Event-ID", "0")
             .exchange()
             .expectStatus()
             .isOk()
-            .expectHeader()
-            .contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
-            .returnResult(String.class)
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
             .getResponseBody()
+            .filter(sse -> "value-replay".equals(sse.data()))
             .blockFirst(Duration.ofSeconds(10));
-        assertThat(value).isEqualTo("value-consume");
+        assertThat(event).isNotNull();
+        assertThat(event.id()).isNotBlank();
     }
 }